@@ -0,0 +1,61 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of positional and keyed comparison over in-memory synthetic data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class CompareBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"20"})
+    public int cols;
+
+    @Param({"0.001", "0.05"})
+    public double mismatchRate;
+
+    @Param({"0", "0.01"})
+    public double reorderRate;
+
+    private List<List<String>> env1;
+    private List<List<String>> env2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = SyntheticData.generate(rows, cols, mismatchRate, reorderRate, 42);
+        env1 = data.getEnv1();
+        env2 = data.getEnv2();
+    }
+
+    @Benchmark
+    public ComparisonResult compareFiles() {
+        return FileComparisonUtils.compareFiles(env1, env2);
+    }
+
+    @Benchmark
+    public ComparisonResult compareFilesByKey() {
+        return FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0});
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import com.opencsv.exceptions.CsvValidationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the file readers on synthetic extracts (whole files per second).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class ReaderBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"20"})
+    public int cols;
+
+    private Path dir;
+    private Path csvFile;
+    private Path txtFile;
+    private Path xlsxFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticData data = SyntheticData.generate(rows, cols, 0, 0, 42);
+        dir = Files.createTempDirectory("reader-bench");
+        csvFile = dir.resolve("env1.csv");
+        txtFile = dir.resolve("env1.txt");
+        xlsxFile = dir.resolve("env1.xlsx");
+        SyntheticData.writeDelimited(csvFile, data.getEnv1(), ',');
+        SyntheticData.writeDelimited(txtFile, data.getEnv1(), '\t');
+        SyntheticData.writeXlsx(xlsxFile, data.getEnv1());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public List<List<String>> readCSV() throws IOException, CsvValidationException {
+        return FileComparisonUtils.readCSV(csvFile.toString());
+    }
+
+    @Benchmark
+    public List<List<String>> readTextFile() throws IOException {
+        return FileComparisonUtils.readTextFile(txtFile.toString());
+    }
+
+    @Benchmark
+    public List<List<String>> readExcel() throws IOException {
+        return FileComparisonUtils.readExcel(xlsxFile.toString());
+    }
+}
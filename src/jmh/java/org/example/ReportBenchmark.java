@@ -0,0 +1,72 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the HTML, Excel and Extent report writers for a fixed comparison result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class ReportBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"20"})
+    public int cols;
+
+    @Param({"0.001", "0.05"})
+    public double mismatchRate;
+
+    private ComparisonResult result;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SyntheticData data = SyntheticData.generate(rows, cols, mismatchRate, 0, 42);
+        result = FileComparisonUtils.compareFiles(data.getEnv1(), data.getEnv2());
+        dir = Files.createTempDirectory("report-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public void generateHTMLReport() throws IOException {
+        ReportUtils.generateHTMLReport(dir.resolve("report.html").toString(), result);
+    }
+
+    @Benchmark
+    public void generateExcelReport() throws IOException {
+        ReportUtils.generateExcelReport(dir.resolve("report.xlsx").toString(), result);
+    }
+
+    @Benchmark
+    public FileComparisonSummary generateExtentReport() throws IOException {
+        return DynamicReportGenerator.generateExtentReport("bench", result,
+                dir.resolve("ExtentReport.html").toString(), dir.toString(), ExtentReportSink.DEFAULT_MAX_LOGGED_TRADES);
+    }
+}
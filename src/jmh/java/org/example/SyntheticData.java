@@ -0,0 +1,141 @@
+package org.example;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates a pair of Env1/Env2 trade extracts for the benchmarks. Column 0 is a unique TradeID;
+ * the remaining columns alternate between numeric amounts and repetitive reference data such as
+ * book codes and currencies. Env2 is a copy of Env1 with a configurable share of cells changed and
+ * a configurable share of rows moved out of position.
+ */
+public class SyntheticData {
+
+    private static final String[] BOOKS = {"CR-LDN-01", "CR-NY-02", "RATES-EU", "FX-ASIA", "EQ-DERIV"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY", "CHF", "INR"};
+    private static final String[] STATUSES = {"NEW", "AMENDED", "CANCELLED", "MATURED"};
+
+    private final List<List<String>> env1;
+    private final List<List<String>> env2;
+
+    private SyntheticData(List<List<String>> env1, List<List<String>> env2) {
+        this.env1 = env1;
+        this.env2 = env2;
+    }
+
+    public static SyntheticData generate(int rows, int cols, double mismatchRate, double reorderRate, long seed) {
+        Random random = new Random(seed);
+
+        List<String> headers = new ArrayList<>();
+        headers.add("TradeID");
+        for (int j = 1; j < cols; j++) {
+            headers.add("Col" + j);
+        }
+
+        List<List<String>> env1 = new ArrayList<>(rows + 1);
+        List<List<String>> env2 = new ArrayList<>(rows + 1);
+        env1.add(headers);
+        env2.add(new ArrayList<>(headers));
+
+        for (int i = 0; i < rows; i++) {
+            List<String> row1 = new ArrayList<>(cols);
+            List<String> row2 = new ArrayList<>(cols);
+            String tradeId = String.valueOf(1000000 + i);
+            row1.add(tradeId);
+            row2.add(tradeId);
+            for (int j = 1; j < cols; j++) {
+                String value = cellValue(random, j);
+                row1.add(value);
+                row2.add(random.nextDouble() < mismatchRate ? mutate(random, value, j) : value);
+            }
+            env1.add(row1);
+            env2.add(row2);
+        }
+
+        // Move a share of Env2 rows a short distance out of position
+        int reorders = (int) (rows * reorderRate);
+        for (int n = 0; n < reorders; n++) {
+            int from = 1 + random.nextInt(rows);
+            int to = Math.min(rows, Math.max(1, from + random.nextInt(201) - 100));
+            Collections.swap(env2, from, to);
+        }
+        return new SyntheticData(env1, env2);
+    }
+
+    public List<List<String>> getEnv1() {
+        return env1;
+    }
+
+    public List<List<String>> getEnv2() {
+        return env2;
+    }
+
+    public static void writeDelimited(Path path, List<List<String>> rows, char delimiter) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (List<String> row : rows) {
+                for (int j = 0; j < row.size(); j++) {
+                    if (j > 0) {
+                        writer.write(delimiter);
+                    }
+                    writer.write(row.get(j));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void writeXlsx(Path path, List<List<String>> rows) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (FileOutputStream out = new FileOutputStream(path.toFile())) {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            for (int i = 0; i < rows.size(); i++) {
+                Row row = sheet.createRow(i);
+                List<String> values = rows.get(i);
+                for (int j = 0; j < values.size(); j++) {
+                    String value = values.get(j);
+                    if (i > 0 && j % 3 == 1) {
+                        row.createCell(j).setCellValue(Double.parseDouble(value));
+                    } else {
+                        row.createCell(j).setCellValue(value);
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static String cellValue(Random random, int column) {
+        switch (column % 3) {
+            case 1:
+                return String.format(Locale.ROOT, "%.2f", random.nextDouble() * 1000000);
+            case 2:
+                return column % 2 == 0 ? BOOKS[random.nextInt(BOOKS.length)] : CURRENCIES[random.nextInt(CURRENCIES.length)];
+            default:
+                return STATUSES[random.nextInt(STATUSES.length)];
+        }
+    }
+
+    private static String mutate(Random random, String value, int column) {
+        if (column % 3 == 1) {
+            double changed = Double.parseDouble(value) + 1 + random.nextInt(100);
+            return String.format(Locale.ROOT, "%.2f", changed);
+        }
+        return value + "-X";
+    }
+}
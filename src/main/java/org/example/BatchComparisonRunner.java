@@ -0,0 +1,213 @@
+package org.example;
+
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many report comparisons concurrently on a bounded worker pool. Each job gets its own
+ * timeout and any failure is recorded against that job only, so one corrupt file does not stop
+ * the rest of the batch. Summaries from all successful jobs feed a single consolidated report
+ * written once at the end of the run.
+ *
+ * <p>A job that times out is interrupted; it stops at the next row it reads, compares or writes
+ * and deletes its output directory, see {@link ComparisonCancelledException}. The run gives it
+ * up to the timeout again to stop before recording it as timed out, so its worker is normally
+ * free again and nothing of it is still being written when the consolidated report is. A job
+ * stuck in a step that ignores interrupts, such as a blocking file read, is abandoned after that
+ * grace period and left to finish on its daemon worker.
+ */
+public class BatchComparisonRunner {
+
+    public static final String PARALLELISM = "batch.parallelism";
+    public static final String TIMEOUT_SECONDS = "batch.timeoutSeconds";
+
+    private final int parallelism;
+    private final long timeoutSeconds;
+    private final ComparisonOptions options;
+
+    public BatchComparisonRunner(int parallelism, long timeoutSeconds, ComparisonOptions options) {
+        this.parallelism = Math.max(1, parallelism);
+        this.timeoutSeconds = timeoutSeconds;
+        this.options = options;
+    }
+
+    public static BatchComparisonRunner fromProperties(Properties props) {
+        int parallelism = Integer.parseInt(props.getProperty(PARALLELISM,
+                String.valueOf(Runtime.getRuntime().availableProcessors())).trim());
+        long timeoutSeconds = Long.parseLong(props.getProperty(TIMEOUT_SECONDS, "0").trim());
+        return new BatchComparisonRunner(parallelism, timeoutSeconds, ComparisonOptions.fromProperties(props));
+    }
+
+    /**
+     * Reads the jobs flagged "yes" in the Comparision column of a DataSheet.xlsx-style workbook.
+     */
+    public static List<ComparisonJob> loadJobs(String dataSheetPath, Properties props) throws IOException {
+        String folderNameEnv1 = props.getProperty("folder1");
+        String folderNameEnv2 = props.getProperty("folder2");
+
+        List<ComparisonJob> jobs = new ArrayList<>();
+        for (List<String> row : FileComparisonUtils.readExcel(dataSheetPath)) {
+            if (row.size() > 4 && "yes".equalsIgnoreCase(row.get(4).trim())) {
+                String path = row.get(3); // Path column
+                String reportName = row.get(2); // Reportname column
+                jobs.add(new ComparisonJob(Paths.get(path, folderNameEnv1).toString(),
+                        Paths.get(path, folderNameEnv2).toString(), reportName));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs the jobs in a new {@link ComparisonRun} and writes its consolidated report.
+     */
+    public ComparisonRun run(List<ComparisonJob> jobs, String baseOutputPath) {
+        ComparisonRun run = new ComparisonRun(baseOutputPath);
+        run(jobs, run);
+        try {
+            run.complete();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return run;
+    }
+
+    /**
+     * Runs the jobs and records their outcomes in {@code run}, leaving the run open so callers can
+     * add more comparisons before completing it.
+     */
+    public void run(List<ComparisonJob> jobs, ComparisonRun run) {
+        ExecutorService workers = newWorkerPool();
+        ScheduledExecutorService watchdog = newWatchdog();
+        try {
+            run(jobs, run, workers, watchdog);
+        } finally {
+            workers.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the jobs on pools owned by the caller, which are left running afterwards. Lets a
+     * long-lived {@link ComparisonService} share one warm pool between all its runs.
+     */
+    void run(List<ComparisonJob> jobs, ComparisonRun run, ExecutorService workers, ScheduledExecutorService watchdog) {
+        System.out.println("Batch started: " + jobs.size() + " comparisons on " + parallelism + " workers");
+
+        int succeeded = 0;
+        int failed = 0;
+        Map<ComparisonJob, FutureTask<FileComparisonSummary>> tasks = new LinkedHashMap<>();
+        Map<ComparisonJob, CountDownLatch> stopped = new LinkedHashMap<>();
+        try {
+            for (ComparisonJob job : jobs) {
+                FutureTask<FileComparisonSummary> task = new FutureTask<>(() -> runJob(job, run.getBaseOutputPath()));
+                // A cancelled task reports done at once; this counts down when its worker is free
+                CountDownLatch jobStopped = new CountDownLatch(1);
+                tasks.put(job, task);
+                stopped.put(job, jobStopped);
+                workers.execute(() -> {
+                    // The timeout starts when the job starts, not when it was queued
+                    ScheduledFuture<?> timer = timeoutSeconds > 0
+                            ? watchdog.schedule(() -> task.cancel(true), timeoutSeconds, TimeUnit.SECONDS)
+                            : null;
+                    try {
+                        task.run();
+                    } finally {
+                        if (timer != null) {
+                            timer.cancel(false);
+                        }
+                        jobStopped.countDown();
+                    }
+                });
+            }
+
+            for (Map.Entry<ComparisonJob, FutureTask<FileComparisonSummary>> entry : tasks.entrySet()) {
+                ComparisonJob job = entry.getKey();
+                String reason;
+                try {
+                    run.addSummary(entry.getValue().get());
+                    succeeded++;
+                    continue;
+                } catch (CancellationException e) {
+                    reason = "Timed out after " + timeoutSeconds + " seconds";
+                    if (!awaitStopped(job, stopped.get(job))) {
+                        reason += ", abandoned while still running";
+                    }
+                } catch (ExecutionException e) {
+                    reason = String.valueOf(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    reason = "Interrupted";
+                }
+                System.out.println("Comparison failed for " + job + ": " + reason);
+                run.addFailure(job.toString(), reason);
+                failed++;
+            }
+        } finally {
+            // Jobs still queued on a shared pool must not outlive an interrupted run
+            for (FutureTask<FileComparisonSummary> task : tasks.values()) {
+                task.cancel(true);
+            }
+        }
+
+        System.out.println("Batch completed: " + succeeded + " succeeded, " + failed + " failed");
+    }
+
+    /**
+     * Waits up to the timeout for a timed out job to stop, and returns whether it did.
+     */
+    private boolean awaitStopped(ComparisonJob job, CountDownLatch jobStopped) {
+        try {
+            if (jobStopped.await(0, TimeUnit.SECONDS)) {
+                return true;
+            }
+            System.out.println("Waiting for timed out comparison to stop: " + job);
+            if (jobStopped.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                return true;
+            }
+            System.out.println("Abandoning timed out comparison that did not stop within " + timeoutSeconds + " seconds: " + job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private FileComparisonSummary runJob(ComparisonJob job, String baseOutputPath) throws IOException, CsvValidationException {
+        return DynamicReportGenerator.compareAndReport(job.getFolder1(), job.getFolder2(), baseOutputPath,
+                job.getReportName(), options);
+    }
+
+    ExecutorService newWorkerPool() {
+        return Executors.newFixedThreadPool(parallelism, namedThreads("comparison-worker"));
+    }
+
+    ScheduledExecutorService newWatchdog() {
+        return Executors.newSingleThreadScheduledExecutor(namedThreads("comparison-watchdog"));
+    }
+
+    static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
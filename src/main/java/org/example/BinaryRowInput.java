@@ -0,0 +1,53 @@
+package org.example;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the encoding written by {@link BinaryRowOutput}.
+ */
+class BinaryRowInput extends DataInputStream {
+
+    private byte[] scratch = new byte[256];
+
+    BinaryRowInput(InputStream in) {
+        super(in);
+    }
+
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = read();
+            if (b < 0) {
+                throw new EOFException("Truncated binary row data");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    String readString() throws IOException {
+        int length = (int) readVarint();
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        readFully(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a cell count followed by the cells.
+     */
+    String[] readCells() throws IOException {
+        String[] cells = new String[(int) readVarint()];
+        for (int j = 0; j < cells.length; j++) {
+            cells[j] = readString();
+        }
+        return cells;
+    }
+}
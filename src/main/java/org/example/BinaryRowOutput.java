@@ -0,0 +1,41 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding for spilled and cached rows: counts and lengths are unsigned varints
+ * and strings are length-prefixed UTF-8. Read back with {@link BinaryRowInput}.
+ */
+class BinaryRowOutput extends DataOutputStream {
+
+    BinaryRowOutput(OutputStream out) {
+        super(out);
+    }
+
+    void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    void writeString(String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        write(bytes);
+    }
+
+    /**
+     * Writes the cell count followed by the cells.
+     */
+    void writeCells(Iterable<String> cells, int count) throws IOException {
+        writeVarint(count);
+        for (String cell : cells) {
+            writeString(cell);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only row whose fields are slices of a mapped file. A field is decoded from UTF-8 the
+ * first time it is read and cached after that; {@link #fieldEquals} compares two fields byte by
+ * byte, so cells that match are never decoded at all.
+ */
+final class ByteSliceRow extends AbstractList<String> implements RandomAccess {
+
+    private final ByteBuffer buffer;
+    // Start and end offset per field; an inverted end marks a quoted field containing "" escapes
+    private final int[] offsets;
+    private String[] decoded;
+
+    ByteSliceRow(ByteBuffer buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public int size() {
+        return offsets.length / 2;
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (decoded == null) {
+            decoded = new String[size()];
+        }
+        String value = decoded[index];
+        if (value == null) {
+            value = decode(index);
+            decoded[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Whether field {@code index} of this row has the same content as field {@code otherIndex}
+     * of {@code other}, compared without decoding either.
+     */
+    boolean fieldEquals(int index, ByteSliceRow other, int otherIndex) {
+        int start = offsets[index * 2];
+        int end = offsets[index * 2 + 1];
+        int otherStart = other.offsets[otherIndex * 2];
+        int otherEnd = other.offsets[otherIndex * 2 + 1];
+        if (end < 0 || otherEnd < 0) {
+            // Escaped quotes make the raw bytes differ from the value, so decode
+            return get(index).equals(other.get(otherIndex));
+        }
+        int length = end - start;
+        if (length != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != other.buffer.get(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds each field's raw bytes to {@code hasher}, framed by its length and quoting so that
+     * rows hash equal only when their fields are equal.
+     */
+    void hashInto(XxHash64 hasher) {
+        hasher.update(size());
+        for (int i = 0; i < offsets.length; i += 2) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            int length = end < 0 ? ~end - start : end - start;
+            hasher.update(end < 0 ? ~length : length);
+            hasher.update(buffer, start, length);
+        }
+    }
+
+    private String decode(int index) {
+        int start = offsets[index * 2];
+        int end = offsets[index * 2 + 1];
+        boolean escaped = end < 0;
+        if (escaped) {
+            end = ~end;
+        }
+        byte[] bytes = new byte[end - start];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        return escaped ? value.replace("\"\"", "\"") : value;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * Renders {@link ColumnStats} as an inline SVG heatmap: one row per column with mismatches, one
+ * cell per delta bucket plus one for text mismatches, shaded by count. Building the markup is
+ * plain string work, so unlike a rendered chart it needs no AWT and costs next to nothing per
+ * file.
+ */
+public class ColumnHeatmap {
+
+    private static final int LABEL_WIDTH = 160;
+    private static final int CELL_WIDTH = 56;
+    private static final int CELL_HEIGHT = 20;
+    private static final int HEADER_HEIGHT = 24;
+    private static final int SUMMARY_WIDTH = 200;
+
+    private ColumnHeatmap() {
+    }
+
+    /**
+     * The heatmap as an {@code <svg>} element, or null when no column has mismatches.
+     */
+    public static String toSvg(String[] headers, ColumnStats stats) {
+        int rows = 0;
+        long maxCount = 0;
+        for (int j = 0; j < stats.getColumnCount(); j++) {
+            if (stats.getMismatches(j) > 0) {
+                rows++;
+                maxCount = Math.max(maxCount, stats.getTextMismatches(j));
+                for (int b = 0; b < ColumnStats.BUCKETS; b++) {
+                    maxCount = Math.max(maxCount, stats.getHistogramCount(j, b));
+                }
+            }
+        }
+        if (rows == 0) {
+            return null;
+        }
+
+        int cells = ColumnStats.BUCKETS + 1;
+        int width = LABEL_WIDTH + cells * CELL_WIDTH + SUMMARY_WIDTH;
+        int height = HEADER_HEIGHT + rows * CELL_HEIGHT;
+        StringBuilder svg = new StringBuilder();
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height)
+                .append("\" font-family=\"sans-serif\" font-size=\"10\">");
+
+        for (int b = 0; b < cells; b++) {
+            String label = b < ColumnStats.BUCKETS ? ColumnStats.bucketLabel(b) : "text";
+            text(svg, LABEL_WIDTH + b * CELL_WIDTH + CELL_WIDTH / 2, HEADER_HEIGHT - 8, "middle", label);
+        }
+        text(svg, LABEL_WIDTH + cells * CELL_WIDTH + 6, HEADER_HEIGHT - 8, "start", "mismatches / max |delta| / mean |delta|");
+
+        int y = HEADER_HEIGHT;
+        for (int j = 0; j < stats.getColumnCount(); j++) {
+            if (stats.getMismatches(j) == 0) {
+                continue;
+            }
+            String header = j < headers.length ? headers[j] : String.valueOf(j);
+            text(svg, LABEL_WIDTH - 6, y + CELL_HEIGHT - 6, "end", header);
+            for (int b = 0; b < cells; b++) {
+                long count = b < ColumnStats.BUCKETS ? stats.getHistogramCount(j, b) : stats.getTextMismatches(j);
+                int x = LABEL_WIDTH + b * CELL_WIDTH;
+                svg.append("<rect x=\"").append(x).append("\" y=\"").append(y)
+                        .append("\" width=\"").append(CELL_WIDTH).append("\" height=\"").append(CELL_HEIGHT)
+                        .append("\" fill=\"").append(color(count, maxCount)).append("\" stroke=\"#ddd\">")
+                        .append("<title>").append(StreamingHtmlReportWriter.escapeHtml(header)).append(": ").append(count).append("</title></rect>");
+                if (count > 0) {
+                    text(svg, x + CELL_WIDTH / 2, y + CELL_HEIGHT - 6, "middle", String.valueOf(count));
+                }
+            }
+            text(svg, LABEL_WIDTH + cells * CELL_WIDTH + 6, y + CELL_HEIGHT - 6, "start",
+                    stats.getMismatches(j) + " / " + format(stats.getMaxAbsDelta(j)) + " / " + format(stats.getMeanAbsDelta(j)));
+            y += CELL_HEIGHT;
+        }
+        return svg.append("</svg>").toString();
+    }
+
+    // White for 0 to red for the largest count, on a log scale so small counts stay visible
+    private static String color(long count, long maxCount) {
+        if (count == 0) {
+            return "#ffffff";
+        }
+        double intensity = Math.log1p(count) / Math.log1p(maxCount);
+        int other = (int) Math.round(235 * (1 - intensity));
+        return String.format("#ff%02x%02x", other, other);
+    }
+
+    private static void text(StringBuilder svg, int x, int y, String anchor, String value) {
+        svg.append("<text x=\"").append(x).append("\" y=\"").append(y)
+                .append("\" text-anchor=\"").append(anchor).append("\">").append(StreamingHtmlReportWriter.escapeHtml(value)).append("</text>");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.4g", value);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Decides whether two cell values of one column count as equal. Rules are compiled once per
+ * comparison into an array indexed by column, see {@link ColumnRules}, so checking a cell costs
+ * one virtual call. Values that are equal as strings never reach a rule.
+ */
+public interface ColumnRule {
+
+    boolean matches(String value1, String value2);
+}
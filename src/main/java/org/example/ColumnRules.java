@@ -0,0 +1,207 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses and compiles per-column comparison rules. A rule is written as a type followed by
+ * options, separated by spaces:
+ *
+ * <pre>
+ * rule.default=numeric abs=0.5
+ * rule.Price=numeric abs=0.01 rel=0.0001
+ * rule.Comment=ignore
+ * rule.Counterparty=text trim collapse ignoreCase
+ * rule.TradeDate=date format=dd/MM/yyyy|yyyyMMdd
+ * </pre>
+ *
+ * <p>Types are {@code exact}, {@code ignore}, {@code text}, {@code numeric} (absolute and/or
+ * relative tolerance) and {@code date} (equal calendar day in any of the given formats, plus
+ * {@code dd-MMM-yyyy} and {@code yyyy-MM-dd}). The text options {@code trim}, {@code collapse}
+ * (runs of whitespace count as one space) and {@code ignoreCase} apply to every type, and values
+ * that are not numbers or dates fall back to that text comparison.
+ */
+public class ColumnRules {
+
+    public static final String DEFAULT_SPEC = "numeric abs=" + FileComparisonUtils.NUMERIC_TOLERANCE;
+
+    private static final ColumnRule IGNORE = (value1, value2) -> true;
+
+    private ColumnRules() {
+    }
+
+    /**
+     * Compiles one rule per header. Each column takes the rule named by its header, else the
+     * rule for its zero-based index, else {@code defaultSpec}.
+     */
+    public static ColumnRule[] compile(List<String> headers, Map<String, String> specs, String defaultSpec) {
+        ColumnRule defaultRule = parse(defaultSpec);
+        ColumnRule[] rules = new ColumnRule[headers.size()];
+        for (int j = 0; j < rules.length; j++) {
+            String spec = spec(headers.get(j), j, specs, null);
+            rules[j] = spec == null ? defaultRule : parse(spec);
+        }
+        return rules;
+    }
+
+    /**
+     * The spec of the rule {@link #compile} picks for a column.
+     */
+    static String spec(String header, int column, Map<String, String> specs, String defaultSpec) {
+        String spec = specs.get(header);
+        if (spec == null) {
+            spec = specs.get(String.valueOf(column));
+        }
+        return spec == null ? defaultSpec : spec;
+    }
+
+    public static ColumnRule parse(String spec) {
+        String[] tokens = spec.trim().split("\\s+");
+        String type = tokens[0].toLowerCase(Locale.ROOT);
+        boolean trim = false;
+        boolean collapse = false;
+        boolean ignoreCase = false;
+        double absolute = 0;
+        double relative = 0;
+        List<DateTimeFormatter> formats = new ArrayList<>();
+
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i];
+            int equals = token.indexOf('=');
+            String name = equals < 0 ? token : token.substring(0, equals);
+            String value = equals < 0 ? null : token.substring(equals + 1);
+            try {
+                if ("trim".equalsIgnoreCase(name)) {
+                    trim = true;
+                } else if ("collapse".equalsIgnoreCase(name)) {
+                    collapse = true;
+                } else if ("ignoreCase".equalsIgnoreCase(name)) {
+                    ignoreCase = true;
+                } else if ("abs".equalsIgnoreCase(name) && value != null) {
+                    absolute = Double.parseDouble(value);
+                } else if ("rel".equalsIgnoreCase(name) && value != null) {
+                    relative = Double.parseDouble(value);
+                } else if ("format".equalsIgnoreCase(name) && value != null) {
+                    for (String pattern : value.split("\\|")) {
+                        formats.add(formatter(pattern));
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unknown option '" + token + "'");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid column rule '" + spec + "': " + e.getMessage(), e);
+            }
+        }
+
+        TextRule text = new TextRule(trim, collapse, ignoreCase);
+        switch (type) {
+            case "ignore":
+                return IGNORE;
+            case "exact":
+                return (value1, value2) -> false;
+            case "text":
+                return text;
+            case "numeric":
+                return new NumericRule(absolute, relative, text);
+            case "date":
+                formats.add(formatter("dd-MMM-yyyy"));
+                formats.add(DateTimeFormatter.ISO_LOCAL_DATE);
+                return new DateRule(formats.toArray(new DateTimeFormatter[0]), text);
+            default:
+                throw new IllegalArgumentException("Invalid column rule '" + spec + "': unknown type '" + tokens[0] + "'");
+        }
+    }
+
+    private static DateTimeFormatter formatter(String pattern) {
+        return new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern).toFormatter(Locale.ENGLISH);
+    }
+
+    static final class TextRule implements ColumnRule {
+        private final boolean trim;
+        private final boolean collapse;
+        private final boolean ignoreCase;
+        private final boolean exact;
+
+        TextRule(boolean trim, boolean collapse, boolean ignoreCase) {
+            this.trim = trim;
+            this.collapse = collapse;
+            this.ignoreCase = ignoreCase;
+            this.exact = !trim && !collapse && !ignoreCase;
+        }
+
+        @Override
+        public boolean matches(String value1, String value2) {
+            if (exact) {
+                return value1.equals(value2);
+            }
+            String normalized1 = normalize(value1);
+            String normalized2 = normalize(value2);
+            return ignoreCase ? normalized1.equalsIgnoreCase(normalized2) : normalized1.equals(normalized2);
+        }
+
+        private String normalize(String value) {
+            if (trim || collapse) {
+                value = value.trim();
+            }
+            return collapse ? value.replaceAll("\\s+", " ") : value;
+        }
+    }
+
+    static final class NumericRule implements ColumnRule {
+        private final double absolute;
+        private final double relative;
+        private final TextRule text;
+
+        NumericRule(double absolute, double relative, TextRule text) {
+            this.absolute = absolute;
+            this.relative = relative;
+            this.text = text;
+        }
+
+        @Override
+        public boolean matches(String value1, String value2) {
+            double number1 = NumericParser.parse(value1);
+            double number2 = Double.isNaN(number1) ? Double.NaN : NumericParser.parse(value2);
+            if (Double.isNaN(number2)) {
+                return text.matches(value1, value2);
+            }
+            double delta = Math.abs(number1 - number2);
+            return delta <= absolute || delta <= relative * Math.max(Math.abs(number1), Math.abs(number2));
+        }
+    }
+
+    static final class DateRule implements ColumnRule {
+        private final DateTimeFormatter[] formats;
+        private final TextRule text;
+
+        DateRule(DateTimeFormatter[] formats, TextRule text) {
+            this.formats = formats;
+            this.text = text;
+        }
+
+        @Override
+        public boolean matches(String value1, String value2) {
+            LocalDate date1 = parse(value1);
+            LocalDate date2 = date1 == null ? null : parse(value2);
+            return date2 != null ? date1.equals(date2) : text.matches(value1, value2);
+        }
+
+        private LocalDate parse(String value) {
+            String trimmed = value.trim();
+            for (DateTimeFormatter format : formats) {
+                try {
+                    return LocalDate.parse(trimmed, format);
+                } catch (DateTimeParseException e) {
+                    // Try the next format
+                }
+            }
+            return null;
+        }
+    }
+}
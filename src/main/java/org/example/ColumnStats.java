@@ -0,0 +1,115 @@
+package org.example;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+
+/**
+ * Per-column mismatch statistics, accumulated in one pass as differences are added to a
+ * {@link ComparisonResult}. Only cells of records present in both files are counted, so a
+ * column's figures show how its values drift rather than how many records are missing.
+ *
+ * <p>Numeric mismatches are also bucketed by the order of magnitude of their absolute delta,
+ * see {@link #bucketLabel(int)}.
+ */
+public class ColumnStats {
+
+    public static final int BUCKETS = 8;
+
+    // Lower bound of bucket b is 10^(b + MIN_EXPONENT); the first bucket also takes anything smaller
+    private static final int MIN_EXPONENT = -3;
+
+    private final long[] mismatches;
+    private final long[] numericMismatches;
+    private final double[] sumAbsDelta;
+    private final double[] maxAbsDelta;
+    private final long[][] histogram;
+
+    public ColumnStats(int columnCount) {
+        mismatches = new long[columnCount];
+        numericMismatches = new long[columnCount];
+        sumAbsDelta = new double[columnCount];
+        maxAbsDelta = new double[columnCount];
+        histogram = new long[columnCount][BUCKETS];
+    }
+
+    void add(RecordDifference difference) {
+        if (difference.getStatus() != RecordDifference.Status.MISMATCHED) {
+            return;
+        }
+        int k = 0;
+        BitSet columns = difference.getMismatchedColumns();
+        for (int j = columns.nextSetBit(0); j >= 0; j = columns.nextSetBit(j + 1), k++) {
+            if (j >= mismatches.length) {
+                break;
+            }
+            mismatches[j]++;
+            if (difference.isNumeric(k)) {
+                double delta = Math.abs(difference.getDelta(k));
+                numericMismatches[j]++;
+                sumAbsDelta[j] += delta;
+                maxAbsDelta[j] = Math.max(maxAbsDelta[j], delta);
+                histogram[j][bucket(delta)]++;
+            }
+        }
+    }
+
+    public int getColumnCount() {
+        return mismatches.length;
+    }
+
+    public long getMismatches(int column) {
+        return mismatches[column];
+    }
+
+    /**
+     * Mismatches of the column whose values are not both numbers.
+     */
+    public long getTextMismatches(int column) {
+        return mismatches[column] - numericMismatches[column];
+    }
+
+    public long getNumericMismatches(int column) {
+        return numericMismatches[column];
+    }
+
+    public double getMaxAbsDelta(int column) {
+        return maxAbsDelta[column];
+    }
+
+    /**
+     * Mean absolute delta of the numeric mismatches, or 0 when there are none.
+     */
+    public double getMeanAbsDelta(int column) {
+        return numericMismatches[column] == 0 ? 0 : sumAbsDelta[column] / numericMismatches[column];
+    }
+
+    public long getHistogramCount(int column, int bucket) {
+        return histogram[column][bucket];
+    }
+
+    /**
+     * The range of absolute deltas counted in {@code bucket}, such as {@code "0.1-1"}.
+     */
+    public static String bucketLabel(int bucket) {
+        if (bucket == 0) {
+            return "<" + power(MIN_EXPONENT + 1);
+        }
+        if (bucket == BUCKETS - 1) {
+            return ">=" + power(bucket + MIN_EXPONENT);
+        }
+        return power(bucket + MIN_EXPONENT) + "-" + power(bucket + MIN_EXPONENT + 1);
+    }
+
+    static int bucket(double absDelta) {
+        if (!(absDelta > 0)) {
+            return 0;
+        }
+        int exponent = (int) Math.floor(Math.log10(absDelta));
+        return Math.max(0, Math.min(BUCKETS - 1, exponent - MIN_EXPONENT));
+    }
+
+    private static String power(int exponent) {
+        return exponent < 0 ? BigDecimal.ONE.movePointLeft(-exponent).toPlainString()
+                : BigDecimal.ONE.movePointRight(exponent).toPlainString();
+    }
+}
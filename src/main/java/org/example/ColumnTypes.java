@@ -0,0 +1,114 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Infers the kind of data held in each column from the first rows of a file. Once inferred, the
+ * type is cached for the rest of the comparison: in pure text columns the comparator only tries a
+ * numeric parse when both values start like a number, and report writers can use the type to
+ * decide how to present a column.
+ */
+public class ColumnTypes {
+
+    public enum Type {
+        UNKNOWN,
+        NUMERIC,
+        DATE,
+        TEXT,
+        MIXED
+    }
+
+    static final int SAMPLE_ROWS = 256;
+
+    private final int[] numericCounts;
+    private final int[] dateCounts;
+    private final int[] textCounts;
+    private final Type[] types;
+    private int sampledRows;
+
+    public ColumnTypes(int numCols) {
+        numericCounts = new int[numCols];
+        dateCounts = new int[numCols];
+        textCounts = new int[numCols];
+        types = new Type[numCols];
+    }
+
+    public boolean isSampling() {
+        return sampledRows < SAMPLE_ROWS;
+    }
+
+    /**
+     * Adds one data row to the sample. Rows beyond the sample size are ignored.
+     */
+    public void observe(List<String> row) {
+        if (!isSampling()) {
+            return;
+        }
+        int columns = Math.min(row.size(), types.length);
+        for (int j = 0; j < columns; j++) {
+            String value = row.get(j);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (NumericParser.isNumeric(value)) {
+                numericCounts[j]++;
+            } else if (looksLikeDate(value)) {
+                dateCounts[j]++;
+            } else {
+                textCounts[j]++;
+            }
+        }
+        if (++sampledRows == SAMPLE_ROWS) {
+            for (int j = 0; j < types.length; j++) {
+                types[j] = classify(j);
+            }
+        }
+    }
+
+    public Type getType(int column) {
+        if (column >= types.length) {
+            return Type.UNKNOWN;
+        }
+        return types[column] != null ? types[column] : classify(column);
+    }
+
+    private Type classify(int column) {
+        int numeric = numericCounts[column];
+        int date = dateCounts[column];
+        int text = textCounts[column];
+        if (numeric == 0 && date == 0 && text == 0) {
+            return Type.UNKNOWN;
+        }
+        if (date == 0 && text == 0) {
+            return Type.NUMERIC;
+        }
+        if (numeric == 0 && text == 0) {
+            return Type.DATE;
+        }
+        return numeric == 0 ? Type.TEXT : Type.MIXED;
+    }
+
+    /**
+     * Matches the {@code dd-MMM-yyyy} text POI produces for date cells and ISO {@code yyyy-MM-dd}.
+     */
+    static boolean looksLikeDate(String value) {
+        int length = value.length();
+        if (length == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+            return allDigits(value, 0, 4) && allDigits(value, 5, 7) && allDigits(value, 8, 10);
+        }
+        if (length == 11 && value.charAt(2) == '-' && value.charAt(6) == '-') {
+            return allDigits(value, 0, 2) && Character.isLetter(value.charAt(3)) && allDigits(value, 7, 11);
+        }
+        return false;
+    }
+
+    private static boolean allDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
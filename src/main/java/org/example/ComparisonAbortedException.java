@@ -0,0 +1,35 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when a comparison is stopped early because its differences exceeded the fail-fast
+ * limits, see {@link ComparisonOptions#getFailFastMaxMismatches()}. Carries the counts up to that
+ * point and the first records with differences.
+ */
+public class ComparisonAbortedException extends RuntimeException {
+
+    private final transient ComparisonResult result;
+    private final List<String> examples;
+
+    public ComparisonAbortedException(String reason, ComparisonResult result, List<String> examples) {
+        super(reason);
+        this.result = result;
+        this.examples = examples;
+    }
+
+    /**
+     * The counts of the records compared before the comparison was stopped.
+     */
+    public ComparisonResult getResult() {
+        return result;
+    }
+
+    /**
+     * The first records with differences, one line each.
+     */
+    public List<String> getExamples() {
+        return Collections.unmodifiableList(examples);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example;
+
+/**
+ * Thrown on a comparison thread that has been interrupted, e.g. when a job of the
+ * {@link BatchComparisonRunner} times out. Reading, comparing and report writing check for the
+ * interrupt once per row, see {@link #checkInterrupted()}, so a cancelled comparison stops
+ * promptly instead of running to the end on its worker.
+ */
+public class ComparisonCancelledException extends RuntimeException {
+
+    public ComparisonCancelledException() {
+        super("Comparison cancelled");
+    }
+
+    /**
+     * Throws if the current thread has been interrupted. The interrupt status is kept, so blocking
+     * calls on the way out are cancelled too.
+     */
+    static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ComparisonCancelledException();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+/**
+ * One report pair to compare: the same report name looked up in the Env1 and Env2 folders.
+ */
+public class ComparisonJob {
+    private final String folder1;
+    private final String folder2;
+    private final String reportName;
+
+    public ComparisonJob(String folder1, String folder2, String reportName) {
+        this.folder1 = folder1;
+        this.folder2 = folder2;
+        this.reportName = reportName;
+    }
+
+    public String getFolder1() {
+        return folder1;
+    }
+
+    public String getFolder2() {
+        return folder2;
+    }
+
+    public String getReportName() {
+        return reportName;
+    }
+
+    @Override
+    public String toString() {
+        return reportName + " (" + folder1 + " vs " + folder2 + ")";
+    }
+}
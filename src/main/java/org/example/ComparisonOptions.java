@@ -0,0 +1,524 @@
+package org.example;
+
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Settings that control how two files are compared. Instances are usually built from
+ * {@code config.properties} via {@link #fromProperties(Properties)}.
+ */
+public class ComparisonOptions {
+
+    public static final String KEY_COLUMNS = "key.columns";
+    public static final String PIPELINE_ENABLED = "pipeline.enabled";
+    public static final String PIPELINE_QUEUE_SIZE = "pipeline.queueSize";
+    public static final String EXTERNAL_ENABLED = "external.enabled";
+    public static final String EXTERNAL_MEMORY_BUDGET_MB = "external.memoryBudgetMb";
+    public static final String EXTERNAL_TEMP_DIR = "external.tempDir";
+    public static final String DIGEST_ENABLED = "digest.enabled";
+    public static final String CACHE_ENABLED = "cache.enabled";
+    public static final String CACHE_DIR = "cache.dir";
+    public static final String CACHE_MAX_SIZE_MB = "cache.maxSizeMb";
+    public static final String CACHE_TRUST_MODIFIED_TIME = "cache.trustModifiedTime";
+    public static final String PARALLEL_ENABLED = "parallel.enabled";
+    public static final String PARALLEL_THREADS = "parallel.threads";
+    public static final String PARALLEL_CHUNK_SIZE = "parallel.chunkSize";
+    public static final String WORKBOOK_ALL_SHEETS = "workbook.allSheets";
+    public static final String EXTENT_MAX_LOGGED_TRADES = "extent.maxLoggedTrades";
+    public static final String DICTIONARY_ENCODING = "table.dictionary";
+    public static final String REPORT_FORMATS = "report.formats";
+    public static final String DELTA_FORMAT = "delta.format";
+    public static final String DELTA_GZIP = "delta.gzip";
+    public static final String FAIL_FAST_MAX_MISMATCHES = "failfast.maxMismatches";
+    public static final String FAIL_FAST_MAX_MISMATCH_RATE = "failfast.maxMismatchRate";
+    public static final String FAIL_FAST_MIN_RECORDS = "failfast.minRecords";
+    public static final String FAIL_FAST_EXAMPLES = "failfast.examples";
+    public static final String SAMPLE_RATE = "sample.rate";
+    public static final String SAMPLE_ONLY = "sample.only";
+    public static final String RULE_PREFIX = "rule.";
+    public static final String DEFAULT_RULE = "rule.default";
+    public static final String RULES_FILE = "rules.file";
+
+    // Column indexes or header names that make up the record key; empty means positional matching
+    private List<String> keyColumns = new ArrayList<>();
+    private boolean pipelined;
+    private int pipelineQueueSize = PipelinedComparison.DEFAULT_QUEUE_SIZE;
+    private boolean externalSort;
+    private long externalMemoryBudget = ExternalSortComparison.DEFAULT_MEMORY_BUDGET_MB * 1024L * 1024L;
+    private String externalTempDir = System.getProperty("java.io.tmpdir");
+    private boolean digestEnabled;
+    private boolean cacheEnabled;
+    private String cacheDir = Paths.get(System.getProperty("java.io.tmpdir"), "file-comparison-cache").toString();
+    private long cacheMaxSize = ParsedFileCache.DEFAULT_MAX_SIZE_MB * 1024L * 1024L;
+    private boolean cacheTrustModifiedTime;
+    private boolean parallel;
+    private int parallelThreads;
+    private int parallelChunkSize = ParallelComparison.DEFAULT_CHUNK_SIZE;
+    private boolean allSheets;
+    private int extentMaxLoggedTrades = ExtentReportSink.DEFAULT_MAX_LOGGED_TRADES;
+    private boolean dictionaryEncoding;
+    private Set<ReportFormat> reportFormats = EnumSet.of(ReportFormat.HTML, ReportFormat.EXCEL, ReportFormat.EXTENT);
+    private DeltaReportWriter.Format deltaFormat = DeltaReportWriter.Format.JSONL;
+    private boolean deltaGzip;
+    private int failFastMaxMismatches;
+    private double failFastMaxMismatchRate;
+    private int failFastMinRecords = 1000;
+    private int failFastExamples = 10;
+    private double sampleRate;
+    private boolean sampleOnly;
+    // Rule specs by header name or column index, see ColumnRules
+    private Map<String, String> columnRules = new LinkedHashMap<>();
+    private String defaultRule = ColumnRules.DEFAULT_SPEC;
+
+    public static ComparisonOptions defaults() {
+        return new ComparisonOptions();
+    }
+
+    public static ComparisonOptions fromProperties(Properties props) {
+        ComparisonOptions options = new ComparisonOptions();
+        String keys = props.getProperty(KEY_COLUMNS, "").trim();
+        if (!keys.isEmpty()) {
+            for (String key : keys.split(",")) {
+                if (!key.trim().isEmpty()) {
+                    options.keyColumns.add(key.trim());
+                }
+            }
+        }
+        options.pipelined = Boolean.parseBoolean(props.getProperty(PIPELINE_ENABLED, "false").trim());
+        options.pipelineQueueSize = Integer.parseInt(props.getProperty(PIPELINE_QUEUE_SIZE,
+                String.valueOf(PipelinedComparison.DEFAULT_QUEUE_SIZE)).trim());
+        options.externalSort = Boolean.parseBoolean(props.getProperty(EXTERNAL_ENABLED, "false").trim());
+        options.externalMemoryBudget = Long.parseLong(props.getProperty(EXTERNAL_MEMORY_BUDGET_MB,
+                String.valueOf(ExternalSortComparison.DEFAULT_MEMORY_BUDGET_MB)).trim()) * 1024L * 1024L;
+        options.externalTempDir = props.getProperty(EXTERNAL_TEMP_DIR, options.externalTempDir).trim();
+        options.digestEnabled = Boolean.parseBoolean(props.getProperty(DIGEST_ENABLED, "false").trim());
+        options.cacheEnabled = Boolean.parseBoolean(props.getProperty(CACHE_ENABLED, "false").trim());
+        options.cacheDir = props.getProperty(CACHE_DIR, options.cacheDir).trim();
+        options.cacheMaxSize = Long.parseLong(props.getProperty(CACHE_MAX_SIZE_MB,
+                String.valueOf(ParsedFileCache.DEFAULT_MAX_SIZE_MB)).trim()) * 1024L * 1024L;
+        options.cacheTrustModifiedTime = Boolean.parseBoolean(props.getProperty(CACHE_TRUST_MODIFIED_TIME, "false").trim());
+        options.parallel = Boolean.parseBoolean(props.getProperty(PARALLEL_ENABLED, "false").trim());
+        options.parallelThreads = Integer.parseInt(props.getProperty(PARALLEL_THREADS, "0").trim());
+        options.parallelChunkSize = Integer.parseInt(props.getProperty(PARALLEL_CHUNK_SIZE,
+                String.valueOf(ParallelComparison.DEFAULT_CHUNK_SIZE)).trim());
+        options.allSheets = Boolean.parseBoolean(props.getProperty(WORKBOOK_ALL_SHEETS, "false").trim());
+        options.extentMaxLoggedTrades = Integer.parseInt(props.getProperty(EXTENT_MAX_LOGGED_TRADES,
+                String.valueOf(ExtentReportSink.DEFAULT_MAX_LOGGED_TRADES)).trim());
+        options.dictionaryEncoding = Boolean.parseBoolean(props.getProperty(DICTIONARY_ENCODING, "false").trim());
+        options.reportFormats = ReportFormat.parse(props.getProperty(REPORT_FORMATS, "html,excel,extent"));
+        options.deltaFormat = DeltaReportWriter.Format.valueOf(props.getProperty(DELTA_FORMAT, "jsonl").trim().toUpperCase(Locale.ROOT));
+        options.deltaGzip = Boolean.parseBoolean(props.getProperty(DELTA_GZIP, "false").trim());
+        options.failFastMaxMismatches = Integer.parseInt(props.getProperty(FAIL_FAST_MAX_MISMATCHES, "0").trim());
+        options.failFastMaxMismatchRate = Double.parseDouble(props.getProperty(FAIL_FAST_MAX_MISMATCH_RATE, "0").trim());
+        options.failFastMinRecords = Integer.parseInt(props.getProperty(FAIL_FAST_MIN_RECORDS, "1000").trim());
+        options.failFastExamples = Integer.parseInt(props.getProperty(FAIL_FAST_EXAMPLES, "10").trim());
+        options.sampleRate = Double.parseDouble(props.getProperty(SAMPLE_RATE, "0").trim());
+        options.sampleOnly = Boolean.parseBoolean(props.getProperty(SAMPLE_ONLY, "false").trim());
+
+        String rulesFile = props.getProperty(RULES_FILE, "").trim();
+        if (!rulesFile.isEmpty()) {
+            options.loadRules(rulesFile);
+        }
+        for (String name : props.stringPropertyNames()) {
+            if (name.equals(DEFAULT_RULE)) {
+                options.defaultRule = props.getProperty(name).trim();
+            } else if (name.startsWith(RULE_PREFIX)) {
+                options.columnRules.put(name.substring(RULE_PREFIX.length()), props.getProperty(name).trim());
+            }
+        }
+        // Fail on a bad rule when the configuration is loaded rather than mid-run
+        for (String spec : options.columnRules.values()) {
+            ColumnRules.parse(spec);
+        }
+        ColumnRules.parse(options.defaultRule);
+        return options;
+    }
+
+    public boolean isKeyed() {
+        return !keyColumns.isEmpty();
+    }
+
+    public List<String> getKeyColumns() {
+        return Collections.unmodifiableList(keyColumns);
+    }
+
+    public void setKeyColumns(List<String> keyColumns) {
+        this.keyColumns = new ArrayList<>(keyColumns);
+    }
+
+    /**
+     * Whether reading, comparing and report writing run as concurrent stages, see
+     * {@link PipelinedComparison}.
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    public void setPipelineQueueSize(int pipelineQueueSize) {
+        this.pipelineQueueSize = pipelineQueueSize;
+    }
+
+    /**
+     * Whether files are compared out of core by sorting them on disk, see
+     * {@link ExternalSortComparison}. Takes precedence over the pipelined mode.
+     */
+    public boolean isExternalSort() {
+        return externalSort;
+    }
+
+    public void setExternalSort(boolean externalSort) {
+        this.externalSort = externalSort;
+    }
+
+    /**
+     * Heap, in bytes, that buffered rows may use before they are spilled to a sorted run file.
+     */
+    public long getExternalMemoryBudget() {
+        return externalMemoryBudget;
+    }
+
+    public void setExternalMemoryBudget(long externalMemoryBudget) {
+        this.externalMemoryBudget = externalMemoryBudget;
+    }
+
+    public String getExternalTempDir() {
+        return externalTempDir;
+    }
+
+    public void setExternalTempDir(String externalTempDir) {
+        this.externalTempDir = externalTempDir;
+    }
+
+    /**
+     * Whether identical files are skipped on a whole-file digest and identical rows on a row
+     * digest, leaving the cell diff to rows whose digests differ.
+     */
+    public boolean isDigestEnabled() {
+        return digestEnabled;
+    }
+
+    public void setDigestEnabled(boolean digestEnabled) {
+        this.digestEnabled = digestEnabled;
+    }
+
+    /**
+     * Whether parsed input files are kept in the on-disk {@link ParsedFileCache}.
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public String getCacheDir() {
+        return cacheDir;
+    }
+
+    public void setCacheDir(String cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Size cap of the cache in bytes; least recently used entries are evicted beyond it.
+     */
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    /**
+     * Whether a cached file with an unchanged size and modification time is replayed without
+     * hashing its content. Faster, but a file rewritten at the same size within the timestamp
+     * granularity of its file system is then read from its stale entry.
+     */
+    public boolean isCacheTrustModifiedTime() {
+        return cacheTrustModifiedTime;
+    }
+
+    public void setCacheTrustModifiedTime(boolean cacheTrustModifiedTime) {
+        this.cacheTrustModifiedTime = cacheTrustModifiedTime;
+    }
+
+    /**
+     * Whether in-memory comparisons are split into chunks compared on a fork-join pool, see
+     * {@link ParallelComparison}.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Worker threads for parallel comparisons; 0 uses the common fork-join pool.
+     */
+    public int getParallelThreads() {
+        return parallelThreads;
+    }
+
+    public void setParallelThreads(int parallelThreads) {
+        this.parallelThreads = parallelThreads;
+    }
+
+    public int getParallelChunkSize() {
+        return parallelChunkSize;
+    }
+
+    public void setParallelChunkSize(int parallelChunkSize) {
+        this.parallelChunkSize = parallelChunkSize;
+    }
+
+    /**
+     * Whether every sheet of an .xlsx or .xls workbook is compared, matched by name, instead of
+     * only the first one; see {@link WorkbookComparison}. The streamed modes still read the first
+     * sheet.
+     */
+    public boolean isAllSheets() {
+        return allSheets;
+    }
+
+    public void setAllSheets(boolean allSheets) {
+        this.allSheets = allSheets;
+    }
+
+    /**
+     * How many trades with differences the per-file Extent report logs one by one; the rest are
+     * only counted.
+     */
+    public int getExtentMaxLoggedTrades() {
+        return extentMaxLoggedTrades;
+    }
+
+    public void setExtentMaxLoggedTrades(int extentMaxLoggedTrades) {
+        this.extentMaxLoggedTrades = extentMaxLoggedTrades;
+    }
+
+    /**
+     * Whether files compared in memory are loaded into a column-wise {@link DictionaryTable}
+     * instead of a list of string rows.
+     */
+    public boolean isDictionaryEncoding() {
+        return dictionaryEncoding;
+    }
+
+    public void setDictionaryEncoding(boolean dictionaryEncoding) {
+        this.dictionaryEncoding = dictionaryEncoding;
+    }
+
+    /**
+     * The per-file outputs written for each comparison. Leaving out the HTML, Excel and Extent
+     * reports and keeping only the delta skips all report rendering.
+     */
+    public Set<ReportFormat> getReportFormats() {
+        return Collections.unmodifiableSet(reportFormats);
+    }
+
+    public void setReportFormats(Set<ReportFormat> reportFormats) {
+        this.reportFormats = reportFormats.isEmpty() ? EnumSet.noneOf(ReportFormat.class) : EnumSet.copyOf(reportFormats);
+    }
+
+    public boolean isReportEnabled(ReportFormat format) {
+        return reportFormats.contains(format);
+    }
+
+    public DeltaReportWriter.Format getDeltaFormat() {
+        return deltaFormat;
+    }
+
+    public void setDeltaFormat(DeltaReportWriter.Format deltaFormat) {
+        this.deltaFormat = deltaFormat;
+    }
+
+    /**
+     * Whether the delta output is gzip-compressed.
+     */
+    public boolean isDeltaGzip() {
+        return deltaGzip;
+    }
+
+    public void setDeltaGzip(boolean deltaGzip) {
+        this.deltaGzip = deltaGzip;
+    }
+
+    /**
+     * Number of records with differences after which a comparison is stopped; 0 means no limit.
+     * A parallel comparison cannot stop early and is checked once its chunks are merged. See
+     * {@link ComparisonAbortedException}.
+     */
+    public int getFailFastMaxMismatches() {
+        return failFastMaxMismatches;
+    }
+
+    public void setFailFastMaxMismatches(int failFastMaxMismatches) {
+        this.failFastMaxMismatches = failFastMaxMismatches;
+    }
+
+    /**
+     * Share of the records compared so far, between 0 and 1, that may have differences before a
+     * comparison is stopped; 0 means no limit. Only checked once
+     * {@link #getFailFastMinRecords()} records have been compared.
+     */
+    public double getFailFastMaxMismatchRate() {
+        return failFastMaxMismatchRate;
+    }
+
+    public void setFailFastMaxMismatchRate(double failFastMaxMismatchRate) {
+        this.failFastMaxMismatchRate = failFastMaxMismatchRate;
+    }
+
+    public int getFailFastMinRecords() {
+        return failFastMinRecords;
+    }
+
+    public void setFailFastMinRecords(int failFastMinRecords) {
+        this.failFastMinRecords = failFastMinRecords;
+    }
+
+    /**
+     * How many records with differences an aborted comparison reports as examples.
+     */
+    public int getFailFastExamples() {
+        return failFastExamples;
+    }
+
+    public void setFailFastExamples(int failFastExamples) {
+        this.failFastExamples = failFastExamples;
+    }
+
+    public boolean isFailFast() {
+        return failFastMaxMismatches > 0 || failFastMaxMismatchRate > 0;
+    }
+
+    /**
+     * Share of the records, between 0 and 1, compared first as a health check before the full
+     * comparison; 0 turns sampling off. A sample over the fail-fast limits stops the file
+     * without a full run. See {@link RowSampler}.
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isSampled() {
+        return sampleRate > 0 && sampleRate < 1;
+    }
+
+    /**
+     * Whether only the sample is compared, with no full run and no per-file reports.
+     */
+    public boolean isSampleOnly() {
+        return sampleOnly;
+    }
+
+    public void setSampleOnly(boolean sampleOnly) {
+        this.sampleOnly = sampleOnly;
+    }
+
+    public Map<String, String> getColumnRules() {
+        return Collections.unmodifiableMap(columnRules);
+    }
+
+    /**
+     * Sets the rule spec for a column, named by header or zero-based index.
+     */
+    public void setColumnRule(String column, String spec) {
+        ColumnRules.parse(spec);
+        columnRules.put(column, spec);
+    }
+
+    public String getDefaultRule() {
+        return defaultRule;
+    }
+
+    public void setDefaultRule(String defaultRule) {
+        ColumnRules.parse(defaultRule);
+        this.defaultRule = defaultRule;
+    }
+
+    /**
+     * Compiles the configured rules against a header row, one per column.
+     */
+    public ColumnRule[] compileRules(List<String> headers) {
+        return ColumnRules.compile(headers, columnRules, defaultRule);
+    }
+
+    /**
+     * The rule spec {@link #compileRules} uses for a column.
+     */
+    public String ruleSpec(String header, int column) {
+        return ColumnRules.spec(header, column, columnRules, defaultRule);
+    }
+
+    /**
+     * Reads column rules from a sheet or delimited file whose first two columns are the column
+     * (header name or index) and the rule spec, e.g. a Rules tab saved from DataSheet.xlsx. A
+     * first row of "Column, Rule" is skipped.
+     */
+    private void loadRules(String rulesFile) {
+        try {
+            FileComparisonUtils.readRows(rulesFile, row -> {
+                if (row.size() < 2 || row.get(0).trim().isEmpty() || "Column".equalsIgnoreCase(row.get(0).trim())) {
+                    return;
+                }
+                String column = row.get(0).trim();
+                if ("default".equalsIgnoreCase(column)) {
+                    defaultRule = row.get(1).trim();
+                } else {
+                    columnRules.put(column, row.get(1).trim());
+                }
+            });
+        } catch (IOException | CsvValidationException e) {
+            throw new IllegalArgumentException("Cannot read rules file: " + rulesFile, e);
+        }
+    }
+
+    /**
+     * Resolves the configured key columns against a header row. Each entry may be a
+     * zero-based column index or a header name.
+     */
+    public int[] resolveKeyColumns(List<String> headers) {
+        int[] indexes = new int[keyColumns.size()];
+        for (int i = 0; i < keyColumns.size(); i++) {
+            String key = keyColumns.get(i);
+            int index = headers.indexOf(key);
+            if (index < 0) {
+                try {
+                    index = Integer.parseInt(key);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Key column not found in header: " + key);
+                }
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+}
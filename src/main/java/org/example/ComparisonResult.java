@@ -0,0 +1,174 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Outcome of comparing two files. The header row is stored once and only records with at least
+ * one difference are kept; fully matching records are reduced to counters, so memory grows with
+ * the number of differences rather than with the size of the input.
+ */
+public class ComparisonResult {
+
+    private final String[] headers;
+    private final ColumnTypes columnTypes;
+    private final ColumnStats columnStats;
+    private final List<RecordDifference> differences = new ArrayList<>();
+    private final Consumer<RecordDifference> listener;
+    private MismatchLimit limit;
+    private int differenceCount;
+    private int matchedRecords;
+    private int onlyInEnv1Records;
+    private int onlyInEnv2Records;
+    private long matchedCells;
+    private long unmatchedCells;
+
+    public ComparisonResult(List<String> headers) {
+        this(headers, null);
+    }
+
+    /**
+     * Creates a result that hands each difference to {@code listener} instead of keeping it, for
+     * comparisons whose output is streamed straight to report sinks.
+     */
+    ComparisonResult(List<String> headers, Consumer<RecordDifference> listener) {
+        this.listener = listener;
+        this.headers = new String[headers.size()];
+        for (int j = 0; j < this.headers.length; j++) {
+            this.headers[j] = headers.get(j).intern();
+        }
+        this.columnTypes = new ColumnTypes(this.headers.length);
+        this.columnStats = new ColumnStats(this.headers.length);
+    }
+
+    /**
+     * Creates a partial result for one chunk of a parallel comparison, sharing the headers and
+     * the already sampled column types of the result it will be merged into.
+     */
+    ComparisonResult(String[] headers, ColumnTypes columnTypes) {
+        this.listener = null;
+        this.headers = headers;
+        this.columnTypes = columnTypes;
+        this.columnStats = new ColumnStats(headers.length);
+    }
+
+    public String[] getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Column types inferred from the Env1 rows seen during the comparison.
+     */
+    public ColumnTypes getColumnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * Mismatch counts and delta statistics per column.
+     */
+    public ColumnStats getColumnStats() {
+        return columnStats;
+    }
+
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    /**
+     * The records with differences. Empty for streamed results, whose records went to a listener.
+     */
+    public List<RecordDifference> getDifferences() {
+        return Collections.unmodifiableList(differences);
+    }
+
+    public int getDifferenceCount() {
+        return differenceCount;
+    }
+
+    public int getMatchedRecords() {
+        return matchedRecords;
+    }
+
+    public int getOnlyInEnv1Records() {
+        return onlyInEnv1Records;
+    }
+
+    public int getOnlyInEnv2Records() {
+        return onlyInEnv2Records;
+    }
+
+    /**
+     * Total records compared, matched or not.
+     */
+    public int getRecordCount() {
+        return matchedRecords + differenceCount;
+    }
+
+    public long getMatchedCells() {
+        return matchedCells;
+    }
+
+    public long getUnmatchedCells() {
+        return unmatchedCells;
+    }
+
+    void addMatchedRecord() {
+        matchedRecords++;
+        matchedCells += headers.length - 1;
+    }
+
+    /**
+     * Appends the records and counts of a partial result, as if its rows had been compared here.
+     */
+    void merge(ComparisonResult part) {
+        matchedRecords += part.matchedRecords;
+        matchedCells += (long) part.matchedRecords * (headers.length - 1);
+        for (RecordDifference difference : part.differences) {
+            addDifference(difference);
+        }
+    }
+
+    /**
+     * Adds the counts, but not the records, of a result with other headers, such as another
+     * sheet of the same workbook.
+     */
+    void addCounts(ComparisonResult other) {
+        differenceCount += other.differenceCount;
+        matchedRecords += other.matchedRecords;
+        onlyInEnv1Records += other.onlyInEnv1Records;
+        onlyInEnv2Records += other.onlyInEnv2Records;
+        matchedCells += other.matchedCells;
+        unmatchedCells += other.unmatchedCells;
+    }
+
+    void addDifference(RecordDifference difference) {
+        if (listener != null) {
+            listener.accept(difference);
+        } else {
+            differences.add(difference);
+        }
+        differenceCount++;
+        columnStats.add(difference);
+        int unmatched = difference.getMismatchCount();
+        unmatchedCells += unmatched;
+        matchedCells += headers.length - 1 - unmatched;
+        if (difference.getStatus() == RecordDifference.Status.ONLY_IN_ENV1) {
+            onlyInEnv1Records++;
+        } else if (difference.getStatus() == RecordDifference.Status.ONLY_IN_ENV2) {
+            onlyInEnv2Records++;
+        }
+        if (limit != null) {
+            limit.check(this, difference);
+        }
+    }
+
+    /**
+     * Aborts the comparison with a {@link ComparisonAbortedException} once {@code limit} is
+     * exceeded; null turns the check off.
+     */
+    void setLimit(MismatchLimit limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the results of every comparison in one run and renders the consolidated Extent report
+ * and overall chart exactly once, when the run is completed. Safe to share between the threads
+ * of a batch.
+ */
+public class ComparisonRun {
+
+    public static final String CONSOLIDATED_REPORT_NAME = "Consolidated_ExtentReport.html";
+
+    private final String baseOutputPath;
+    private final List<FileComparisonSummary> summaries = new ArrayList<>();
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private boolean completed;
+
+    public ComparisonRun(String baseOutputPath) {
+        this.baseOutputPath = baseOutputPath;
+    }
+
+    public String getBaseOutputPath() {
+        return baseOutputPath;
+    }
+
+    public synchronized void addSummary(FileComparisonSummary summary) {
+        checkNotCompleted();
+        summaries.add(summary);
+    }
+
+    public synchronized void addFailure(String fileName, String reason) {
+        checkNotCompleted();
+        failures.put(fileName, reason);
+    }
+
+    public synchronized List<FileComparisonSummary> getSummaries() {
+        return Collections.unmodifiableList(new ArrayList<>(summaries));
+    }
+
+    public synchronized Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Writes the consolidated report and the metrics files for everything recorded so far. Later
+     * calls are no-ops, and no further results may be added once the run is complete.
+     */
+    public synchronized void complete() throws IOException {
+        if (completed) {
+            return;
+        }
+        completed = true;
+
+        Files.createDirectories(Paths.get(baseOutputPath));
+        String consolidatedReportPath = Paths.get(baseOutputPath, CONSOLIDATED_REPORT_NAME).toString();
+        DynamicReportGenerator.generateConsolidatedReport(summaries, failures, consolidatedReportPath);
+        MetricsReport.write(summaries, baseOutputPath);
+    }
+
+    private void checkNotCompleted() {
+        if (completed) {
+            throw new IllegalStateException("Comparison run is already complete");
+        }
+    }
+}
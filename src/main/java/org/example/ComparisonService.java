@@ -0,0 +1,288 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a warm JVM comparing files on request. Comparison jobs arrive over a local HTTP endpoint
+ * and run on one worker pool shared by all requests, so POI, Extent and the comparison code are
+ * loaded and compiled once and the parsed file cache stays hot between runs.
+ *
+ * <pre>
+ * POST /compare?folder1=/data/env1&amp;folder2=/data/env2&amp;report=Book1.xlsx&amp;report=Book2.csv
+ * POST /compare?dataSheet=/data/DataSheet.xlsx&amp;async=true
+ * POST /compare?dataSheet=/data/DataSheet.xlsx&amp;formats=delta
+ * GET  /runs/3
+ * GET  /health
+ * </pre>
+ *
+ * <p>Parameters may be given in the query string or as a form-encoded body. {@code folder1} and
+ * {@code folder2} default to the configured folders. Each run writes its reports to its own
+ * {@code run-<id>} directory under the output directory. {@code /compare} waits for the run and
+ * answers with its status unless {@code async=true} is given, in which case it answers at once
+ * and the status is polled from {@code /runs/<id>}. {@code formats} overrides
+ * {@code report.formats} for the run, e.g. to write only the delta. Statuses are plain
+ * {@code key=value} lines.
+ */
+public class ComparisonService {
+
+    public static final String HOST = "service.host";
+    public static final String PORT = "service.port";
+    public static final String MAX_CONCURRENT_RUNS = "service.maxConcurrentRuns";
+    public static final int DEFAULT_PORT = 8085;
+
+    // Statuses of finished runs beyond this many are forgotten, oldest first
+    private static final int MAX_KEPT_STATUSES = 1000;
+
+    private final Properties props;
+    private final BatchComparisonRunner runner;
+    private final String baseOutputPath;
+    private final ExecutorService workers;
+    private final ScheduledExecutorService watchdog;
+    private final ExecutorService runs;
+    private final Map<Integer, RunStatus> statuses = new LinkedHashMap<>();
+    private final AtomicInteger nextRunId = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    public ComparisonService(Properties props, String baseOutputPath) {
+        this.props = props;
+        this.runner = BatchComparisonRunner.fromProperties(props);
+        this.baseOutputPath = baseOutputPath;
+        this.workers = runner.newWorkerPool();
+        this.watchdog = runner.newWatchdog();
+        int maxRuns = Integer.parseInt(props.getProperty(MAX_CONCURRENT_RUNS, "4").trim());
+        // Runs only wait on their jobs, the comparisons themselves queue on the shared worker pool
+        this.runs = Executors.newFixedThreadPool(Math.max(1, maxRuns), BatchComparisonRunner.namedThreads("comparison-run"));
+    }
+
+    public void start() throws IOException {
+        String host = props.getProperty(HOST, "127.0.0.1").trim();
+        int port = Integer.parseInt(props.getProperty(PORT, String.valueOf(DEFAULT_PORT)).trim());
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/compare", this::handleCompare);
+        server.createContext("/runs/", this::handleStatus);
+        server.createContext("/health", exchange -> respond(exchange, 200, "status=UP\n"));
+        handlers = Executors.newCachedThreadPool(BatchComparisonRunner.namedThreads("comparison-http"));
+        server.setExecutor(handlers);
+        server.start();
+        System.out.println("Comparison service listening on http://" + host + ":" + server.getAddress().getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+        runs.shutdownNow();
+        workers.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Queues a run of {@code jobs} and returns its id.
+     */
+    public int submit(List<ComparisonJob> jobs) {
+        return queue(jobs, runner).id;
+    }
+
+    private RunStatus queue(List<ComparisonJob> jobs, BatchComparisonRunner runner) {
+        int id = nextRunId.incrementAndGet();
+        ComparisonRun run = new ComparisonRun(Paths.get(baseOutputPath, "run-" + id).toString());
+        RunStatus status = new RunStatus(id, run, jobs.size());
+        synchronized (statuses) {
+            statuses.put(id, status);
+            statuses.values().removeIf(old -> statuses.size() > MAX_KEPT_STATUSES && old.future != null && old.future.isDone());
+        }
+        status.future = runs.submit(() -> {
+            status.started = true;
+            try {
+                runner.run(jobs, run, workers, watchdog);
+                run.complete();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                status.error = e.toString();
+            }
+        });
+        return status;
+    }
+
+    private void handleCompare(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "error=Use POST\n");
+            return;
+        }
+        Map<String, List<String>> params = parameters(exchange);
+        List<ComparisonJob> jobs;
+        BatchComparisonRunner runRunner;
+        try {
+            jobs = jobs(params);
+            runRunner = runner(first(params, "formats", null));
+        } catch (IOException | RuntimeException e) {
+            respond(exchange, 400, "error=" + e + "\n");
+            return;
+        }
+        if (jobs.isEmpty()) {
+            respond(exchange, 400, "error=No reports to compare\n");
+            return;
+        }
+
+        RunStatus status = queue(jobs, runRunner);
+        if (!"true".equalsIgnoreCase(first(params, "async", "false"))) {
+            try {
+                status.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                status.error = String.valueOf(e.getCause());
+            }
+        }
+        respond(exchange, status.future.isDone() ? 200 : 202, status.describe());
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring("/runs/".length());
+        RunStatus status;
+        synchronized (statuses) {
+            status = id.matches("\\d+") ? statuses.get(Integer.parseInt(id)) : null;
+        }
+        if (status == null) {
+            respond(exchange, 404, "error=Unknown run " + id + "\n");
+        } else {
+            respond(exchange, 200, status.describe());
+        }
+    }
+
+    private BatchComparisonRunner runner(String formats) {
+        if (formats == null) {
+            return runner;
+        }
+        Properties runProps = new Properties();
+        runProps.putAll(props);
+        runProps.setProperty(ComparisonOptions.REPORT_FORMATS, formats);
+        return BatchComparisonRunner.fromProperties(runProps);
+    }
+
+    private List<ComparisonJob> jobs(Map<String, List<String>> params) throws IOException {
+        String dataSheet = first(params, "dataSheet", null);
+        if (dataSheet != null) {
+            return BatchComparisonRunner.loadJobs(dataSheet, props);
+        }
+        String folder1 = first(params, "folder1", props.getProperty("folder1"));
+        String folder2 = first(params, "folder2", props.getProperty("folder2"));
+        if (folder1 == null || folder2 == null) {
+            throw new IllegalArgumentException("folder1 and folder2 are required");
+        }
+        List<ComparisonJob> jobs = new ArrayList<>();
+        for (String report : params.getOrDefault("report", new ArrayList<>())) {
+            jobs.add(new ComparisonJob(folder1, folder2, report));
+        }
+        return jobs;
+    }
+
+    private static Map<String, List<String>> parameters(HttpExchange exchange) throws IOException {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        parseInto(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                body.write(buffer, 0, n);
+            }
+            parseInto(new String(body.toByteArray(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseInto(String encoded, Map<String, List<String>> params) throws UnsupportedEncodingException {
+        if (encoded == null || encoded.trim().isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.trim().split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), "UTF-8");
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), "UTF-8");
+            params.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    private static String first(Map<String, List<String>> params, String name, String defaultValue) {
+        List<String> values = params.get(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class RunStatus {
+        private final int id;
+        private final ComparisonRun run;
+        private final int jobs;
+        private volatile boolean started;
+        private volatile String error;
+        private volatile Future<?> future;
+
+        RunStatus(int id, ComparisonRun run, int jobs) {
+            this.id = id;
+            this.run = run;
+            this.jobs = jobs;
+        }
+
+        String describe() {
+            String state = error != null ? "FAILED" : run.isCompleted() ? "COMPLETED" : started ? "RUNNING" : "QUEUED";
+            StringBuilder text = new StringBuilder()
+                    .append("id=").append(id).append('\n')
+                    .append("status=").append(state).append('\n')
+                    .append("jobs=").append(jobs).append('\n')
+                    .append("succeeded=").append(run.getSummaries().size()).append('\n')
+                    .append("failed=").append(run.getFailures().size()).append('\n')
+                    .append("output=").append(run.getBaseOutputPath()).append('\n');
+            if (run.isCompleted()) {
+                text.append("report=").append(Paths.get(run.getBaseOutputPath(), ComparisonRun.CONSOLIDATED_REPORT_NAME)).append('\n');
+            }
+            for (FileComparisonSummary summary : run.getSummaries()) {
+                if (summary.isAborted()) {
+                    text.append("aborted=").append(summary.getFileName()).append(": ").append(summary.getAbortReason()).append('\n');
+                }
+            }
+            for (Map.Entry<String, String> failure : run.getFailures().entrySet()) {
+                text.append("failure=").append(failure.getKey()).append(": ").append(failure.getValue()).append('\n');
+            }
+            if (error != null) {
+                text.append("error=").append(error).append('\n');
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives comparison output as it is produced. A sink is started once with the header row, is
+ * given every record that has differences in comparison order, and is finished with the final
+ * counts once the comparison is complete. Records may be grouped into named sections, see
+ * {@link #startSection}. Whoever created a sink closes it once the comparison is over, whether
+ * it completed or failed.
+ */
+public interface ComparisonSink extends Closeable {
+
+    void start(String[] headers) throws IOException;
+
+    void accept(RecordDifference record) throws IOException;
+
+    void finish(ComparisonResult result) throws IOException;
+
+    /**
+     * Starts a named section, such as one sheet of a workbook, between {@link #start} and
+     * {@link #finish}. The records that follow belong to the section and are laid out under
+     * {@code headers}. Ignored by default; sinks that lay records out by header override it.
+     */
+    default void startSection(String name, String[] headers) throws IOException {
+    }
+
+    /**
+     * Ends the current section with its own counts. {@link #finish} is still called once with
+     * the totals of all sections.
+     */
+    default void finishSection(String name, ComparisonResult result) throws IOException {
+    }
+
+    /**
+     * Releases what the sink holds open, such as files or a workbook backed by temp files. After
+     * {@link #finish} this does nothing; before it, the unfinished output is abandoned rather than
+     * completed. Does nothing by default.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
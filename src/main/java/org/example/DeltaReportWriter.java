@@ -0,0 +1,182 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes only the differences, one line per mismatching cell, for jobs that reconcile the output
+ * themselves. Each line holds the record key, the column, both values, the numeric delta and the
+ * verdict together with the rule that produced it. A record found in only one environment is a
+ * single line without a column. Lines are written as the records arrive, optionally through gzip.
+ *
+ * <pre>
+ * {"key":"T1","column":"Price","env1":"100.0","env2":"101.0","delta":-1.0,"rule":"numeric abs=0.5","verdict":"OUT_OF_TOLERANCE"}
+ * {"key":"T9","verdict":"ONLY_IN_ENV2"}
+ * </pre>
+ *
+ * <p>The CSV layout has the same fields, plus the sheet, under a header row. Records of a
+ * workbook section also carry the sheet name. A writer closed before the comparison finished
+ * deletes its file, so a partial delta is never taken for a complete one.
+ */
+public class DeltaReportWriter implements ComparisonSink {
+
+    public enum Format {
+        JSONL("delta.jsonl"),
+        CSV("delta.csv");
+
+        private final String fileName;
+
+        Format(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    public static final String OUT_OF_TOLERANCE = "OUT_OF_TOLERANCE";
+    public static final String TEXT_MISMATCH = "TEXT_MISMATCH";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String path;
+    private final Format format;
+    private final boolean gzip;
+    private final ComparisonOptions options;
+    private Writer writer;
+    private String[] headers;
+    private String[] rules;
+    private String section;
+
+    public DeltaReportWriter(String path, Format format, boolean gzip, ComparisonOptions options) {
+        this.path = path;
+        this.format = format;
+        this.gzip = gzip;
+        this.options = options;
+    }
+
+    /**
+     * The file name for a format, with {@code .gz} appended when compressed.
+     */
+    public static String fileName(Format format, boolean gzip) {
+        return gzip ? format.fileName + ".gz" : format.fileName;
+    }
+
+    @Override
+    public void start(String[] headers) throws IOException {
+        OutputStream out = Files.newOutputStream(Paths.get(path));
+        if (gzip) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write("sheet,key,column,env1,env2,delta,rule,verdict\n");
+        }
+        setHeaders(headers);
+    }
+
+    @Override
+    public void startSection(String name, String[] headers) {
+        section = name;
+        setHeaders(headers);
+    }
+
+    @Override
+    public void finishSection(String name, ComparisonResult result) {
+        section = null;
+    }
+
+    @Override
+    public void accept(RecordDifference record) throws IOException {
+        if (record.getStatus() != RecordDifference.Status.MISMATCHED) {
+            writeLine(record.getKey(), -1, null, null, Double.NaN, record.getStatus().name());
+            return;
+        }
+        BitSet columns = record.getMismatchedColumns();
+        int k = 0;
+        for (int j = columns.nextSetBit(0); j >= 0; j = columns.nextSetBit(j + 1), k++) {
+            writeLine(record.getKey(), j, record.getEnv1Value(k), record.getEnv2Value(k), record.getDelta(k),
+                    record.isOutOfTolerance(k) ? OUT_OF_TOLERANCE : TEXT_MISMATCH);
+        }
+    }
+
+    @Override
+    public void finish(ComparisonResult result) throws IOException {
+        writer.close();
+        writer = null;
+    }
+
+    /**
+     * Closes and deletes the file of a writer that has not finished.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } finally {
+            writer = null;
+            Files.deleteIfExists(Paths.get(path));
+        }
+    }
+
+    private void setHeaders(String[] headers) {
+        this.headers = headers;
+        this.rules = new String[headers.length];
+        for (int j = 0; j < headers.length; j++) {
+            rules[j] = options.ruleSpec(headers[j], j);
+        }
+    }
+
+    // column is -1 for records found in only one environment
+    private void writeLine(String key, int column, String env1, String env2, double delta, String verdict) throws IOException {
+        String header = column < 0 ? null : column < headers.length ? headers[column] : String.valueOf(column);
+        String rule = column < 0 ? null : column < rules.length ? rules[column] : options.getDefaultRule();
+        String deltaText = Double.isNaN(delta) ? null : String.valueOf(delta);
+        if (format == Format.CSV) {
+            writer.write(csv(section));
+            writer.write(',');
+            writer.write(csv(key));
+            writer.write(',');
+            writer.write(csv(header));
+            writer.write(',');
+            writer.write(csv(env1));
+            writer.write(',');
+            writer.write(csv(env2));
+            writer.write(',');
+            writer.write(csv(deltaText));
+            writer.write(',');
+            writer.write(csv(rule));
+            writer.write(',');
+            writer.write(verdict);
+            writer.write('\n');
+            return;
+        }
+        writer.write('{');
+        if (section != null) {
+            writer.write("\"sheet\":" + MetricsReport.jsonString(section) + ",");
+        }
+        writer.write("\"key\":" + MetricsReport.jsonString(key));
+        if (column >= 0) {
+            writer.write(",\"column\":" + MetricsReport.jsonString(header)
+                    + ",\"env1\":" + MetricsReport.jsonString(env1)
+                    + ",\"env2\":" + MetricsReport.jsonString(env2));
+            if (deltaText != null && !Double.isInfinite(delta)) {
+                writer.write(",\"delta\":" + deltaText);
+            }
+            writer.write(",\"rule\":" + MetricsReport.jsonString(rule));
+        }
+        writer.write(",\"verdict\":\"" + verdict + "\"}\n");
+    }
+
+    private static String csv(String value) {
+        return value == null ? "" : MetricsReport.csvField(value);
+    }
+}
@@ -0,0 +1,370 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+/**
+ * A loaded file held column by column instead of as one list of strings per row. The header row
+ * is kept as is; every other column picks the most compact storage that reproduces its values
+ * exactly:
+ *
+ * <ul>
+ *     <li>numbers written the way {@code Double.toString} or {@code Long.toString} writes them,
+ *     which is how the Excel reader renders numeric cells, are stored in a {@code double[]};</li>
+ *     <li>repetitive text (books, currencies, counterparties, flags) is dictionary-encoded into an
+ *     {@code int[]} of codes;</li>
+ *     <li>columns with mostly distinct values, such as trade ids, keep their strings.</li>
+ * </ul>
+ *
+ * <p>Rows are read-only views decoded on access. Tables built with shared dictionaries, see
+ * {@link Builder#Builder(Builder)}, let the comparator test cells for equality by comparing codes
+ * or doubles instead of strings, see {@link Row#cellEquals(int, Row)}.
+ */
+public final class DictionaryTable extends AbstractList<List<String>> implements RandomAccess {
+
+    private enum Kind {
+        INTEGER,
+        DOUBLE,
+        DICTIONARY,
+        PLAIN
+    }
+
+    // A column is checked once it holds this many values; with more distinct values than half
+    // its rows, the dictionary would cost more than it saves
+    private static final int DICTIONARY_CHECK_ROWS = 1024;
+
+    private final List<String> header;
+    private final Column[] columns;
+    private final int[] lengths;
+    private final long[] digests;
+    private final int rowCount;
+
+    private DictionaryTable(List<String> header, Column[] columns, int[] lengths, long[] digests, int rowCount) {
+        this.header = header;
+        this.columns = columns;
+        this.lengths = lengths;
+        this.digests = digests;
+        this.rowCount = rowCount;
+    }
+
+    @Override
+    public List<String> get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size());
+        }
+        return index == 0 ? header : new Row(index - 1);
+    }
+
+    @Override
+    public int size() {
+        return header == null ? 0 : rowCount + 1;
+    }
+
+    /**
+     * One data row of the table. Cells are decoded each time they are read.
+     */
+    public final class Row extends AbstractList<String> implements RandomAccess {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= lengths[row]) {
+                throw new IndexOutOfBoundsException("Cell " + index + " of " + lengths[row]);
+            }
+            return columns[index].get(row);
+        }
+
+        @Override
+        public int size() {
+            return lengths[row];
+        }
+
+        /**
+         * Whether cell {@code column} of this row equals the same cell of {@code other} without
+         * decoding either. A false result only means the cells could not be proven equal this way.
+         */
+        boolean cellEquals(int column, Row other) {
+            return columns[column].cellEquals(row, other.table().columns[column], other.row);
+        }
+
+        boolean hasDigest() {
+            return digests != null;
+        }
+
+        /**
+         * The digest the row was loaded with from the {@link ParsedFileCache}.
+         */
+        long getDigest() {
+            return digests[row];
+        }
+
+        private DictionaryTable table() {
+            return DictionaryTable.this;
+        }
+    }
+
+    /**
+     * Collects rows into a table. Not thread-safe, and builders sharing dictionaries must not be
+     * used concurrently.
+     */
+    public static final class Builder implements Consumer<List<String>> {
+        private final List<Dictionary> dictionaries;
+        private final List<Column> columns = new ArrayList<>();
+        private List<String> header;
+        private int[] lengths = new int[1024];
+        private long[] digests = new long[1024];
+        private boolean digested = true;
+        private int rowCount;
+
+        public Builder() {
+            this.dictionaries = new ArrayList<>();
+        }
+
+        /**
+         * A builder whose dictionary-encoded columns share the dictionaries of {@code other}, so
+         * equal values get equal codes in both tables.
+         */
+        public Builder(Builder other) {
+            this.dictionaries = other.dictionaries;
+        }
+
+        @Override
+        public void accept(List<String> row) {
+            if (header == null) {
+                header = new ArrayList<>(row);
+                return;
+            }
+            if (rowCount == lengths.length) {
+                lengths = Arrays.copyOf(lengths, rowCount * 2);
+                digests = Arrays.copyOf(digests, rowCount * 2);
+            }
+            lengths[rowCount] = row.size();
+            digested &= row instanceof DigestedRow;
+            if (digested) {
+                digests[rowCount] = ((DigestedRow) row).getDigest();
+            }
+            for (int j = 0; j < row.size(); j++) {
+                column(j).set(rowCount, row.get(j));
+            }
+            rowCount++;
+        }
+
+        public DictionaryTable build() {
+            return new DictionaryTable(header, columns.toArray(new Column[0]), Arrays.copyOf(lengths, rowCount),
+                    digested && rowCount > 0 ? Arrays.copyOf(digests, rowCount) : null, rowCount);
+        }
+
+        private Column column(int j) {
+            while (columns.size() <= j) {
+                int index = columns.size();
+                if (dictionaries.size() <= index) {
+                    dictionaries.add(new Dictionary());
+                }
+                columns.add(new Column(dictionaries.get(index)));
+            }
+            return columns.get(j);
+        }
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    private static final class Column {
+        private final Dictionary dictionary;
+        private Kind kind;
+        private double[] numbers;
+        private int[] codes;
+        private String[] strings;
+        // Rows up to which values have been set
+        private int count;
+        private boolean checked;
+        // Codes this column has used until it is checked; a shared dictionary also holds the
+        // values of the other table, so its size says nothing about this column
+        private BitSet seen = new BitSet();
+        private int distinct;
+
+        Column(Dictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        void set(int row, String value) {
+            if (kind == null) {
+                kind = isCanonicalInteger(value) ? Kind.INTEGER : isCanonicalDouble(value) ? Kind.DOUBLE : Kind.DICTIONARY;
+            }
+            if ((kind == Kind.INTEGER && !isCanonicalInteger(value)) || (kind == Kind.DOUBLE && !isCanonicalDouble(value))) {
+                convert(Kind.DICTIONARY);
+            }
+            if (kind == Kind.DICTIONARY && !checked && row >= DICTIONARY_CHECK_ROWS) {
+                checked = true;
+                seen = null;
+                if (distinct > row / 2) {
+                    convert(Kind.PLAIN);
+                }
+            }
+            ensureCapacity(row + 1);
+            switch (kind) {
+                case INTEGER:
+                    numbers[row] = Long.parseLong(value);
+                    break;
+                case DOUBLE:
+                    numbers[row] = Double.parseDouble(value);
+                    break;
+                case DICTIONARY:
+                    codes[row] = encode(value);
+                    break;
+                default:
+                    strings[row] = value;
+                    break;
+            }
+            count = Math.max(count, row + 1);
+        }
+
+        String get(int row) {
+            switch (kind) {
+                case INTEGER:
+                    return Long.toString((long) numbers[row]);
+                case DOUBLE:
+                    return Double.toString(numbers[row]);
+                case DICTIONARY:
+                    return dictionary.decode(codes[row]);
+                default:
+                    return strings[row];
+            }
+        }
+
+        boolean cellEquals(int row, Column other, int otherRow) {
+            if (kind != other.kind) {
+                return false;
+            }
+            switch (kind) {
+                case INTEGER:
+                case DOUBLE:
+                    // Values are canonical, so equal bits mean equal text
+                    return Double.doubleToLongBits(numbers[row]) == Double.doubleToLongBits(other.numbers[otherRow]);
+                case DICTIONARY:
+                    return dictionary == other.dictionary && codes[row] == other.codes[otherRow];
+                default:
+                    return strings[row].equals(other.strings[otherRow]);
+            }
+        }
+
+        private void convert(Kind target) {
+            String[] values = new String[count];
+            for (int row = 0; row < count; row++) {
+                values[row] = get(row);
+            }
+            int capacity = capacity();
+            numbers = null;
+            codes = null;
+            strings = null;
+            kind = target;
+            if (target == Kind.PLAIN) {
+                strings = Arrays.copyOf(values, capacity);
+                return;
+            }
+            codes = new int[capacity];
+            for (int row = 0; row < count; row++) {
+                // Rows this column is missing from hold placeholders that are never read
+                codes[row] = encode(values[row]);
+            }
+        }
+
+        private int encode(String value) {
+            int code = dictionary.encode(value);
+            if (seen != null && !seen.get(code)) {
+                seen.set(code);
+                distinct++;
+            }
+            return code;
+        }
+
+        private int capacity() {
+            return numbers != null ? numbers.length : codes != null ? codes.length : strings != null ? strings.length : 0;
+        }
+
+        private void ensureCapacity(int size) {
+            int capacity = capacity();
+            if (size <= capacity) {
+                return;
+            }
+            int grown = Math.max(size, Math.max(16, capacity * 2));
+            switch (kind) {
+                case INTEGER:
+                case DOUBLE:
+                    numbers = numbers == null ? new double[grown] : Arrays.copyOf(numbers, grown);
+                    break;
+                case DICTIONARY:
+                    codes = codes == null ? new int[grown] : Arrays.copyOf(codes, grown);
+                    break;
+                default:
+                    strings = strings == null ? new String[grown] : Arrays.copyOf(strings, grown);
+                    break;
+            }
+        }
+    }
+
+    // Integers of up to 15 digits are exact in a double and print back the same
+    static boolean isCanonicalInteger(String value) {
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > 15 || (value.charAt(start) == '0' && length - start > 1)
+                || (start == 1 && length == 2 && value.charAt(1) == '0')) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isCanonicalDouble(String value) {
+        if (value.isEmpty() || value.indexOf('.') < 0) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != 'E') {
+                return false;
+            }
+        }
+        try {
+            return Double.toString(Double.parseDouble(value)).equals(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only row that carries its precomputed digest, so rows loaded from the
+ * {@link ParsedFileCache} are never re-hashed by the comparator.
+ */
+final class DigestedRow extends AbstractList<String> implements RandomAccess {
+
+    private final String[] cells;
+    private final long digest;
+
+    DigestedRow(String[] cells, long digest) {
+        this.cells = cells;
+        this.digest = digest;
+    }
+
+    @Override
+    public String get(int index) {
+        return cells[index];
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    long getDigest() {
+        return digest;
+    }
+}
@@ -2,11 +2,9 @@ package org.example;
 
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.opencsv.exceptions.CsvValidationException;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.openxml4j.exceptions.NotOfficeXmlFileException;
-import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
@@ -15,107 +13,414 @@ import org.jfree.data.category.DefaultCategoryDataset;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class DynamicReportGenerator {
 
     public static void generateReports(String folder1, String folder2, String baseOutputPath, String excelFileName) {
-        List<FileComparisonSummary> summaryList = new ArrayList<>();
+        generateReports(folder1, folder2, baseOutputPath, excelFileName, ComparisonOptions.defaults());
+    }
+
+    public static void generateReports(String folder1, String folder2, String baseOutputPath, String excelFileName, ComparisonOptions options) {
+        ComparisonRun run = new ComparisonRun(baseOutputPath);
+        generateReports(folder1, folder2, baseOutputPath, excelFileName, options, run);
 
+        // Generate final consolidated Extent Report
         try {
-            List<List<String>> file1Data = readFile(folder1 + "\\" + excelFileName);
-            List<List<String>> file2Data = readFile(folder2 + "\\" + excelFileName);
+            run.complete();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            System.out.println("Comparison started for " + excelFileName);
+    /**
+     * Compares one report pair and records its summary in {@code run}. The consolidated report is
+     * left to {@link ComparisonRun#complete()}, so any number of files, including ones compared on
+     * other threads, end up in a single consolidated report.
+     */
+    public static void generateReports(String folder1, String folder2, String baseOutputPath, String excelFileName, ComparisonOptions options, ComparisonRun run) {
+        try {
+            run.addSummary(compareAndReport(folder1, folder2, baseOutputPath, excelFileName, options));
+        } catch (IOException | CsvValidationException e) {
+            e.printStackTrace();
+            run.addFailure(excelFileName, e.toString());
+        } catch (RuntimeException e) {
+            run.addFailure(excelFileName, e.toString());
+            throw e;
+        }
+    }
 
-            List<String[]> comparisonResult = FileComparisonUtils.compareFiles(file1Data, file2Data);
+    /**
+     * Compares one report pair and writes its HTML, Excel and Extent reports without touching the
+     * consolidated report. Errors are thrown to the caller so batch runs can isolate them per file.
+     * A comparison stopped by the fail-fast limits is not an error; its summary is flagged as
+     * aborted instead, see {@link FileComparisonSummary#isAborted()}. A comparison whose thread is
+     * interrupted stops at the next row and deletes its output directory, see
+     * {@link ComparisonCancelledException}.
+     */
+    static FileComparisonSummary compareAndReport(String folder1, String folder2, String baseOutputPath, String excelFileName, ComparisonOptions options) throws IOException, CsvValidationException {
+        FileMetrics metrics = new FileMetrics(excelFileName);
+        String outputDir = outputDir(baseOutputPath, excelFileName);
+        FileComparisonSummary summary;
+        try {
+            summary = compareAndReport(folder1, folder2, outputDir, excelFileName, options, metrics);
+            // Interrupted after the last check, the result is discarded like any other cancellation
+            ComparisonCancelledException.checkInterrupted();
+        } catch (ComparisonAbortedException e) {
+            summary = aborted(excelFileName, e.getMessage(), e.getResult(), e.getExamples());
+        } catch (IOException | CsvValidationException | RuntimeException e) {
+            // However the interrupt surfaced, a cancelled job leaves no partial reports behind
+            if (Thread.currentThread().isInterrupted()) {
+                deleteOutputDir(outputDir);
+            }
+            throw e;
+        }
+        metrics.finish();
+        summary.setMetrics(metrics);
+        return summary;
+    }
 
-            System.out.println("Comparison completed for " + excelFileName);
+    private static FileComparisonSummary compareAndReport(String folder1, String folder2, String outputDir, String excelFileName, ComparisonOptions options, FileMetrics metrics) throws IOException, CsvValidationException {
+        String file1Path = Paths.get(folder1, excelFileName).toString();
+        String file2Path = Paths.get(folder2, excelFileName).toString();
+        if (options.isDigestEnabled()) {
+            FileComparisonSummary identical;
+            try (FileMetrics.Stage stage = metrics.start("digest")) {
+                identical = summarizeIfIdentical(file1Path, file2Path, excelFileName, options, stage);
+            }
+            if (identical != null) {
+                return identical;
+            }
+        }
+        if (options.isSampled() && options.isAllSheets() && FileFormat.detect(file1Path).isWorkbook()) {
+            // A sample only covers the first sheet, which says nothing about the other sheets
+            System.out.println("Sampling skipped for " + excelFileName + ": every sheet of the workbook is compared");
+        } else if (options.isSampled()) {
+            FileComparisonSummary sample;
+            try (FileMetrics.Stage stage = metrics.start("sample")) {
+                sample = compareSample(file1Path, file2Path, excelFileName, options, stage);
+            }
+            if (sample.isAborted() || options.isSampleOnly()) {
+                return sample;
+            }
+        }
+        if (options.isExternalSort() || options.isPipelined()) {
+            return compareAndReportStreamed(file1Path, file2Path, outputDir, excelFileName, options, metrics);
+        }
+        if (options.isAllSheets() && FileFormat.detect(file1Path).isWorkbook()) {
+            return compareWorkbookAndReport(file1Path, file2Path, outputDir, excelFileName, options, metrics);
+        }
+        // Both tables share dictionaries so the comparator can match cells by code
+        DictionaryTable.Builder table1 = options.isDictionaryEncoding() ? new DictionaryTable.Builder() : null;
+        DictionaryTable.Builder table2 = table1 != null ? new DictionaryTable.Builder(table1) : null;
+        List<List<String>> file1Data;
+        try (FileMetrics.Stage stage = metrics.start("read Env1")) {
+            file1Data = readFile(file1Path, options, table1);
+            stage.addRows(file1Data.size()).addBytes(Files.size(Paths.get(file1Path)));
+        }
+        List<List<String>> file2Data;
+        try (FileMetrics.Stage stage = metrics.start("read Env2")) {
+            file2Data = readFile(file2Path, options, table2);
+            stage.addRows(file2Data.size()).addBytes(Files.size(Paths.get(file2Path)));
+        }
 
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String outputDir = Paths.get(baseOutputPath, excelFileName + "_" + timestamp).toString();
-            Files.createDirectories(Paths.get(outputDir));
+        System.out.println("Comparison started for " + excelFileName);
 
-            String htmlReportPath = Paths.get(outputDir, "report.html").toString();
-            String excelReportPath = Paths.get(outputDir, "report.xlsx").toString();
+        ComparisonResult comparisonResult;
+        try (FileMetrics.Stage stage = metrics.start("compare")) {
+            comparisonResult = compare(file1Data, file2Data, options);
+            stage.addRows(comparisonResult.getRecordCount());
+        }
 
-            ReportUtils.generateHTMLReport(htmlReportPath, comparisonResult);
-            ReportUtils.generateExcelReport(excelReportPath, comparisonResult);
+        System.out.println("Comparison completed for " + excelFileName);
 
-            // Generate individual Extent Report for each file comparison
-            String extentReportPath = Paths.get(outputDir, "ExtentReport.html").toString();
-            FileComparisonSummary summary = generateExtentReport(excelFileName, comparisonResult, extentReportPath, outputDir);
-            summaryList.add(summary);
+        createOutputDir(outputDir);
 
-            // Generate final consolidated Extent Report
-            String consolidatedReportPath = Paths.get(baseOutputPath, "Consolidated_ExtentReport.html").toString();
-            generateConsolidatedReport(summaryList, consolidatedReportPath);
+        String htmlReportPath = Paths.get(outputDir, "report.html").toString();
+        String excelReportPath = Paths.get(outputDir, "report.xlsx").toString();
 
-        } catch (IOException | CsvValidationException e) {
-            e.printStackTrace();
+        if (options.isReportEnabled(ReportFormat.HTML)) {
+            try (FileMetrics.Stage stage = metrics.start("html report")) {
+                ReportUtils.generateHTMLReport(htmlReportPath, comparisonResult);
+                stage.addRows(comparisonResult.getDifferenceCount());
+            }
+        }
+        if (options.isReportEnabled(ReportFormat.EXCEL)) {
+            try (FileMetrics.Stage stage = metrics.start("excel report")) {
+                ReportUtils.generateExcelReport(excelReportPath, comparisonResult);
+                stage.addRows(comparisonResult.getDifferenceCount());
+            }
+        }
+        if (options.isReportEnabled(ReportFormat.DELTA)) {
+            try (FileMetrics.Stage stage = metrics.start("delta report")) {
+                ReportUtils.writeTo(deltaWriter(outputDir, options), comparisonResult);
+                stage.addRows(comparisonResult.getDifferenceCount());
+            }
+        }
+        if (!options.isReportEnabled(ReportFormat.EXTENT)) {
+            return summarize(excelFileName, comparisonResult);
+        }
+
+        // Generate individual Extent Report for each file comparison
+        String extentReportPath = Paths.get(outputDir, "ExtentReport.html").toString();
+        try (FileMetrics.Stage stage = metrics.start("extent report")) {
+            stage.addRows(comparisonResult.getDifferenceCount());
+            return generateExtentReport(excelFileName, comparisonResult, extentReportPath, outputDir, options.getExtentMaxLoggedTrades());
         }
     }
 
+    /**
+     * Same reports as {@link #compareAndReport}, but the files are streamed through
+     * {@link ExternalSortComparison} or {@link PipelinedComparison} and the reports are written
+     * while the comparison runs. Reading, comparing and reporting overlap, so they are measured as
+     * a single stage.
+     */
+    private static FileComparisonSummary compareAndReportStreamed(String file1Path, String file2Path, String outputDir, String excelFileName, ComparisonOptions options, FileMetrics metrics) throws IOException, CsvValidationException {
+        // Checked before any report is created, the Excel one allocates its workbook up front
+        if (!FileComparisonUtils.hasRows(file1Path)) {
+            throw new IllegalArgumentException("File is empty: " + file1Path);
+        }
+        createOutputDir(outputDir);
 
-    private static FileComparisonSummary generateExtentReport(String fileName, List<String[]> comparisonResult, String reportPath, String outputDir) throws IOException {
-        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath);
-        sparkReporter.config().setDocumentTitle("File Comparison Report - " + fileName);
-        sparkReporter.config().setReportName("File Comparison Report - " + fileName);
+        SummarySink summarySink = new SummarySink();
+        List<ComparisonSink> sinks = new ArrayList<>();
+        try {
+            sinks.add(summarySink);
+            if (options.isReportEnabled(ReportFormat.HTML)) {
+                sinks.add(new StreamingHtmlReportWriter(Paths.get(outputDir, "report.html").toString()));
+            }
+            if (options.isReportEnabled(ReportFormat.EXCEL)) {
+                sinks.add(new StreamingExcelReportWriter(Paths.get(outputDir, "report.xlsx").toString()));
+            }
+            if (options.isReportEnabled(ReportFormat.DELTA)) {
+                sinks.add(deltaWriter(outputDir, options));
+            }
+            if (options.isReportEnabled(ReportFormat.EXTENT)) {
+                sinks.add(new ExtentReportSink(excelFileName, Paths.get(outputDir, "ExtentReport.html").toString(), outputDir,
+                        options.getExtentMaxLoggedTrades()));
+            }
 
-        ExtentReports extent = new ExtentReports();
-        extent.attachReporter(sparkReporter);
+            try (FileMetrics.Stage stage = metrics.start(options.isExternalSort() ? "external sort" : "pipelined")) {
+                if (options.isExternalSort()) {
+                    System.out.println("External sort comparison started for " + excelFileName);
+                    new ExternalSortComparison(options).run(file1Path, file2Path, sinks);
+                } else {
+                    System.out.println("Pipelined comparison started for " + excelFileName);
+                    new PipelinedComparison(options).run(file1Path, file2Path, sinks);
+                }
+                stage.addRows(summarySink.result.getRecordCount())
+                        .addBytes(Files.size(Paths.get(file1Path)) + Files.size(Paths.get(file2Path)));
+            }
+        } finally {
+            // A no-op for sinks that finished; a failed run leaves no temp files or open writers
+            ReportUtils.closeQuietly(sinks);
+        }
+        System.out.println("Comparison completed for " + excelFileName);
 
-        ExtentTest logger = extent.createTest("File Comparison Test - " + fileName);
+        return summarize(excelFileName, summarySink.result);
+    }
 
-        int totalMatched = 0;
-        int totalUnmatched = 0;
+    /**
+     * Same reports as {@link #compareAndReport} for every sheet of an .xlsx or .xls workbook, see
+     * {@link WorkbookComparison}. Each sheet is a section of its own in all three reports.
+     */
+    private static FileComparisonSummary compareWorkbookAndReport(String file1Path, String file2Path, String outputDir, String excelFileName, ComparisonOptions options, FileMetrics metrics) throws IOException {
+        System.out.println("Workbook comparison started for " + excelFileName);
+
+        Map<String, ComparisonResult> sheets;
+        ComparisonResult total = new ComparisonResult(Collections.singletonList("Sheet"));
+        try (FileMetrics.Stage stage = metrics.start("compare sheets")) {
+            sheets = new WorkbookComparison(options).compare(file1Path, file2Path);
+            for (ComparisonResult sheet : sheets.values()) {
+                total.addCounts(sheet);
+            }
+            stage.addRows(total.getRecordCount())
+                    .addBytes(Files.size(Paths.get(file1Path)) + Files.size(Paths.get(file2Path)));
+        }
 
-        for (int i = 0; i < comparisonResult.size(); i += 4) {
-            String[] tradeIdRow = comparisonResult.get(i);
-            String tradeId = tradeIdRow[0];
-            String[] dataInEnv1 = comparisonResult.get(i + 1);
-            String[] dataInEnv2 = comparisonResult.get(i + 2);
-            String[] differences = comparisonResult.get(i + 3);
+        System.out.println("Comparison completed for " + excelFileName + " (" + sheets.size() + " sheets)");
 
-            int matchedColumns = 0;
-            int unmatchedColumns = 0;
-            for (int j = 1; j < differences.length; j++) {
-                if ("matched".equals(differences[j])) {
-                    matchedColumns++;
-                    totalMatched++;
-                } else {
-                    unmatchedColumns++;
-                    totalUnmatched++;
-                }
+        createOutputDir(outputDir);
+        if (options.isReportEnabled(ReportFormat.HTML)) {
+            try (FileMetrics.Stage stage = metrics.start("html report")) {
+                ReportUtils.writeTo(new StreamingHtmlReportWriter(Paths.get(outputDir, "report.html").toString()), sheets, total);
+                stage.addRows(total.getDifferenceCount());
+            }
+        }
+        if (options.isReportEnabled(ReportFormat.EXCEL)) {
+            try (FileMetrics.Stage stage = metrics.start("excel report")) {
+                ReportUtils.writeTo(new StreamingExcelReportWriter(Paths.get(outputDir, "report.xlsx").toString()), sheets, total);
+                stage.addRows(total.getDifferenceCount());
             }
+        }
+        if (options.isReportEnabled(ReportFormat.DELTA)) {
+            try (FileMetrics.Stage stage = metrics.start("delta report")) {
+                ReportUtils.writeTo(deltaWriter(outputDir, options), sheets, total);
+                stage.addRows(total.getDifferenceCount());
+            }
+        }
+        if (!options.isReportEnabled(ReportFormat.EXTENT)) {
+            return summarize(excelFileName, total);
+        }
+        try (FileMetrics.Stage stage = metrics.start("extent report")) {
+            ExtentReportSink extentSink = new ExtentReportSink(excelFileName, Paths.get(outputDir, "ExtentReport.html").toString(),
+                    outputDir, options.getExtentMaxLoggedTrades());
+            ReportUtils.writeTo(extentSink, sheets, total);
+            stage.addRows(total.getDifferenceCount());
+            return extentSink.getSummary();
+        }
+    }
 
-            logger.info("Trade ID: " + tradeId)
-                    .info("Matched Columns: " + matchedColumns)
-                    .info("Unmatched Columns: " + unmatchedColumns);
+    /**
+     * Compares two files held in memory, keyed or positionally and in parallel as configured.
+     */
+    static ComparisonResult compare(List<List<String>> file1Data, List<List<String>> file2Data, ComparisonOptions options) {
+        if (options.isParallel()) {
+            ParallelComparison parallel = new ParallelComparison(options);
+            ComparisonResult result = options.isKeyed()
+                    ? parallel.compareFilesByKey(file1Data, file2Data, options.resolveKeyColumns(file1Data.get(0)))
+                    : parallel.compareFiles(file1Data, file2Data);
+            // Chunks are compared independently and cannot stop early, so the limits are checked once merged
+            MismatchLimit limit = MismatchLimit.from(options);
+            if (limit != null) {
+                limit.checkCompleted(result);
+            }
+            return result;
         }
+        return options.isKeyed()
+                ? FileComparisonUtils.compareFilesByKey(file1Data, file2Data, options.resolveKeyColumns(file1Data.get(0)), options)
+                : FileComparisonUtils.compareFiles(file1Data, file2Data, options);
+    }
 
-        logger.info("Total Matched Columns: " + totalMatched)
-                .info("Total Unmatched Columns: " + totalUnmatched);
+    /**
+     * Compares the records picked by a {@link RowSampler} as a quick health check. The returned
+     * summary is flagged as aborted when the sample goes over the fail-fast limits. As in a full
+     * comparison the mismatch rate is only checked from {@code failfast.minRecords} records on, so
+     * a smaller sample is inconclusive and the full comparison runs.
+     */
+    private static FileComparisonSummary compareSample(String file1Path, String file2Path, String fileName, ComparisonOptions options, FileMetrics.Stage stage) throws IOException, CsvValidationException {
+        List<List<String>> file1Data = new ArrayList<>();
+        List<List<String>> file2Data = new ArrayList<>();
+        ParsedFileCache.readRows(file1Path, options, new RowSampler(options, file1Data::add));
+        ParsedFileCache.readRows(file2Path, options, new RowSampler(options, file2Data::add));
+        stage.addRows(file1Data.size() + file2Data.size())
+                .addBytes(Files.size(Paths.get(file1Path)) + Files.size(Paths.get(file2Path)));
+        if (file1Data.isEmpty()) {
+            throw new IllegalArgumentException("File is empty: " + file1Path);
+        }
 
-        // Generate chart
-        String chartPath = Paths.get(outputDir, "comparison_chart.png").toString();
-        generateComparisonChart(totalMatched, totalUnmatched, chartPath);
+        String prefix = String.format(Locale.ROOT, "Sample of %.2f%%: ", 100 * options.getSampleRate());
+        FileComparisonSummary summary;
+        try {
+            ComparisonResult result = compare(file1Data, file2Data, options);
+            MismatchLimit limit = MismatchLimit.from(options);
+            if (limit != null) {
+                limit.checkCompleted(result);
+            }
+            System.out.println(prefix + result.getDifferenceCount() + " of " + result.getRecordCount()
+                    + " records with differences in " + fileName);
+            if (result.getRecordCount() < options.getFailFastMinRecords()) {
+                System.out.println(prefix + "fewer than " + options.getFailFastMinRecords()
+                        + " records, too few to check the mismatch rate of " + fileName);
+            }
+            summary = summarize(fileName, result);
+        } catch (ComparisonAbortedException e) {
+            summary = aborted(fileName, prefix + e.getMessage(), e.getResult(), e.getExamples());
+        }
+        summary.setSampleRate(options.getSampleRate());
+        return summary;
+    }
 
-        // Embed chart in report
-        logger.addScreenCaptureFromPath(chartPath);
+    private static FileComparisonSummary aborted(String fileName, String reason, ComparisonResult result, List<String> examples) {
+        System.out.println("Comparison aborted for " + fileName + ": " + reason);
+        for (String example : examples) {
+            System.out.println("  " + example);
+        }
+        FileComparisonSummary summary = summarize(fileName, result);
+        summary.setAborted(reason, examples);
+        return summary;
+    }
 
-        extent.flush();
+    private static DeltaReportWriter deltaWriter(String outputDir, ComparisonOptions options) {
+        String path = Paths.get(outputDir, DeltaReportWriter.fileName(options.getDeltaFormat(), options.isDeltaGzip())).toString();
+        return new DeltaReportWriter(path, options.getDeltaFormat(), options.isDeltaGzip(), options);
+    }
+
+    // Same summary the Extent report produces, for runs that skip it
+    private static FileComparisonSummary summarize(String fileName, ComparisonResult result) {
+        return new FileComparisonSummary(fileName, result.getMatchedCells(), result.getUnmatchedCells());
+    }
+
+    /**
+     * The directory of one file's reports, stamped with the time the comparison started. It is
+     * only created once there are reports to write, see {@link #createOutputDir}.
+     */
+    private static String outputDir(String baseOutputPath, String excelFileName) {
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        return Paths.get(baseOutputPath, excelFileName + "_" + timestamp).toString();
+    }
+
+    private static void createOutputDir(String outputDir) throws IOException {
+        Files.createDirectories(Paths.get(outputDir));
+    }
+
+    private static void deleteOutputDir(String outputDir) {
+        Path dir = Paths.get(outputDir);
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.out.println("Could not remove the output of the cancelled comparison in " + outputDir + ": " + e.getMessage());
+        }
+    }
 
-        return new FileComparisonSummary(fileName, totalMatched, totalUnmatched);
+    /**
+     * Returns the summary of a fully matched comparison when both files have the same size and
+     * xxHash64 digest, or null when they differ. Identical files get no per-file reports; only
+     * the rows of one file are counted for the consolidated totals.
+     */
+    private static FileComparisonSummary summarizeIfIdentical(String file1Path, String file2Path, String fileName, ComparisonOptions options, FileMetrics.Stage stage) throws IOException, CsvValidationException {
+        long size = Files.size(Paths.get(file1Path));
+        if (size != Files.size(Paths.get(file2Path))) {
+            return null;
+        }
+        stage.addBytes(2 * size);
+        if (XxHash64.hashFile(file1Path) != XxHash64.hashFile(file2Path)) {
+            return null;
+        }
+        long[] counts = new long[2]; // columns, data rows
+        ParsedFileCache.readRows(file1Path, options, row -> {
+            if (counts[0] == 0 && counts[1] == 0) {
+                counts[0] = Math.max(1, row.size());
+            } else {
+                counts[1]++;
+            }
+        });
+        stage.addRows(counts[1]);
+        System.out.println("Files are identical, skipping comparison for " + fileName);
+        return new FileComparisonSummary(fileName, counts[1] * (counts[0] - 1), 0);
     }
 
-    private static void generateComparisonChart(int matched, int unmatched, String chartPath) throws IOException {
+    static FileComparisonSummary generateExtentReport(String fileName, ComparisonResult comparisonResult, String reportPath, String outputDir, int maxLoggedTrades) throws IOException {
+        ExtentReportSink sink = new ExtentReportSink(fileName, reportPath, outputDir, maxLoggedTrades);
+        ReportUtils.writeTo(sink, comparisonResult);
+        return sink.getSummary();
+    }
+
+    static void generateComparisonChart(long matched, long unmatched, String chartPath) throws IOException {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
         dataset.addValue(matched, "Matched", "Columns");
         dataset.addValue(unmatched, "Unmatched", "Columns");
@@ -131,7 +436,7 @@ public class DynamicReportGenerator {
         ChartUtils.saveChartAsPNG(new File(chartPath), barChart, 800, 600);
     }
 
-    private static void generateConsolidatedReport(List<FileComparisonSummary> summaryList, String reportPath) throws IOException {
+    static void generateConsolidatedReport(List<FileComparisonSummary> summaryList, Map<String, String> failures, String reportPath) throws IOException {
         ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath);
         sparkReporter.config().setDocumentTitle("Consolidated Comparison Report");
         sparkReporter.config().setReportName("Consolidated Comparison Report");
@@ -141,19 +446,36 @@ public class DynamicReportGenerator {
 
         ExtentTest summaryTest = extent.createTest("Summary Report");
 
-        int overallMatched = 0;
-        int overallUnmatched = 0;
+        long overallMatched = 0;
+        long overallUnmatched = 0;
+        int aborted = 0;
 
         for (FileComparisonSummary summary : summaryList) {
             summaryTest.info("File: " + summary.getFileName())
                     .info("Matched Columns: " + summary.getMatchedColumns())
                     .info("Unmatched Columns: " + summary.getUnmatchedColumns());
+            if (summary.getSampleRate() > 0) {
+                summaryTest.info(String.format(Locale.ROOT, "Counts from a %.2f%% sample", 100 * summary.getSampleRate()));
+            }
+            if (summary.isAborted()) {
+                aborted++;
+                summaryTest.fail("File: " + summary.getFileName() + " aborted: " + summary.getAbortReason());
+                for (String example : summary.getExamples()) {
+                    summaryTest.fail(example);
+                }
+            }
 
             overallMatched += summary.getMatchedColumns();
             overallUnmatched += summary.getUnmatchedColumns();
         }
 
+        for (Map.Entry<String, String> failure : failures.entrySet()) {
+            summaryTest.fail("File: " + failure.getKey() + " failed: " + failure.getValue());
+        }
+
         summaryTest.info("Total Files Processed: " + summaryList.size())
+                .info("Total Files Failed: " + failures.size())
+                .info("Total Files Aborted: " + aborted)
                 .info("Overall Matched Columns: " + overallMatched)
                 .info("Overall Unmatched Columns: " + overallUnmatched);
 
@@ -164,59 +486,41 @@ public class DynamicReportGenerator {
         // Embed overall chart in report
         summaryTest.addScreenCaptureFromPath(overallChartPath);
 
-        extent.flush();
-    }
-
-    private static List<List<String>> readFile(String filePath) throws IOException, CsvValidationException {
-        if (filePath.endsWith(".csv")) {
-            return FileComparisonUtils.readCSV(filePath);
-        } else if (filePath.endsWith(".xlsx") || filePath.endsWith(".xls")) {
-            try {
-                if (isValidExcelFile(filePath)) {
-                    return FileComparisonUtils.readExcel(filePath);
-                } else {
-                    throw new IllegalArgumentException("File is not a valid Excel file: " + filePath);
-                }
-            } catch (NotOfficeXmlFileException e) {
-                throw new IllegalArgumentException("File is not a valid Excel file: " + filePath, e);
-            }
-        } else if (filePath.endsWith(".txt")) {
-            return FileComparisonUtils.readTextFile(filePath);
-        } else {
-            throw new IllegalArgumentException("Unsupported file format: " + filePath);
+        String[][] metrics = MetricsReport.table(summaryList);
+        if (metrics.length > 1) {
+            extent.createTest("Performance Metrics").info(MarkupHelper.createTable(metrics));
         }
+
+        extent.flush();
     }
 
-    private static boolean isValidExcelFile(String filePath) throws IOException {
-        try (InputStream is = Files.newInputStream(Paths.get(filePath))) {
-            OPCPackage.open(is).close();
-            return true;
-        } catch (InvalidFormatException | NotOfficeXmlFileException e) {
-            return false;
+    private static List<List<String>> readFile(String filePath, ComparisonOptions options, DictionaryTable.Builder table) throws IOException, CsvValidationException {
+        if (table != null) {
+            ParsedFileCache.readRows(filePath, options, table);
+            return table.build();
         }
+        List<List<String>> rows = new ArrayList<>();
+        ParsedFileCache.readRows(filePath, options, rows::add);
+        return rows;
     }
-}
 
-class FileComparisonSummary {
-    private final String fileName;
-    private final int matchedColumns;
-    private final int unmatchedColumns;
+    /**
+     * Keeps the final counts of a streamed comparison, whichever reports are written.
+     */
+    private static final class SummarySink implements ComparisonSink {
+        private ComparisonResult result;
 
-    public FileComparisonSummary(String fileName, int matchedColumns, int unmatchedColumns) {
-        this.fileName = fileName;
-        this.matchedColumns = matchedColumns;
-        this.unmatchedColumns = unmatchedColumns;
-    }
-
-    public String getFileName() {
-        return fileName;
-    }
+        @Override
+        public void start(String[] headers) {
+        }
 
-    public int getMatchedColumns() {
-        return matchedColumns;
-    }
+        @Override
+        public void accept(RecordDifference record) {
+        }
 
-    public int getUnmatchedColumns() {
-        return unmatchedColumns;
+        @Override
+        public void finish(ComparisonResult result) {
+            this.result = result;
+        }
     }
 }
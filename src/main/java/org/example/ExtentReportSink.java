@@ -0,0 +1,179 @@
+package org.example;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the per-file Extent report from the stream of differing records and produces the
+ * {@link FileComparisonSummary} that feeds the consolidated report.
+ *
+ * <p>Only trades with differences are logged, and only up to a limit; matched trades and the
+ * trades beyond the limit are reported as counters. Extent holds every logged node in memory
+ * until the report is flushed, so the limit bounds both the memory and the size of the page.
+ * The report ends with the per-column mismatch statistics of the comparison and their
+ * {@link ColumnHeatmap}, which is also written next to the report. Sections, such as the sheets
+ * of a workbook, are logged as tests of their own with their own counts and statistics.
+ */
+public class ExtentReportSink implements ComparisonSink {
+
+    public static final int DEFAULT_MAX_LOGGED_TRADES = 1000;
+    public static final String HEATMAP_FILE_NAME = "column_heatmap.svg";
+
+    private final String fileName;
+    private final String reportPath;
+    private final String outputDir;
+    private final int maxLoggedTrades;
+
+    private ExtentReports extent;
+    private ExtentTest fileLogger;
+    private ExtentTest logger;
+    private int numCols;
+    private FileComparisonSummary summary;
+    private int recordCount;
+    private int loggedTrades;
+    private int unloggedTrades;
+    private long unloggedColumns;
+
+    public ExtentReportSink(String fileName, String reportPath, String outputDir) {
+        this(fileName, reportPath, outputDir, DEFAULT_MAX_LOGGED_TRADES);
+    }
+
+    /**
+     * @param maxLoggedTrades how many trades with differences are logged one by one; 0 logs
+     *                        only the counters
+     */
+    public ExtentReportSink(String fileName, String reportPath, String outputDir, int maxLoggedTrades) {
+        this.fileName = fileName;
+        this.reportPath = reportPath;
+        this.outputDir = outputDir;
+        this.maxLoggedTrades = Math.max(0, maxLoggedTrades);
+    }
+
+    @Override
+    public void start(String[] headers) {
+        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(reportPath);
+        sparkReporter.config().setDocumentTitle("File Comparison Report - " + fileName);
+        sparkReporter.config().setReportName("File Comparison Report - " + fileName);
+
+        extent = new ExtentReports();
+        extent.attachReporter(sparkReporter);
+
+        fileLogger = extent.createTest("File Comparison Test - " + fileName);
+        logger = fileLogger;
+        numCols = headers.length;
+    }
+
+    /**
+     * Logs the section, such as a workbook sheet, as a test of its own.
+     */
+    @Override
+    public void startSection(String name, String[] headers) {
+        logger = extent.createTest("Sheet Comparison - " + fileName + " - " + name);
+        numCols = headers.length;
+    }
+
+    @Override
+    public void finishSection(String name, ComparisonResult result) throws IOException {
+        logCounts(result);
+        logColumnStats(result, null);
+        logger = fileLogger;
+    }
+
+    @Override
+    public void accept(RecordDifference record) {
+        int unmatchedColumns = record.getMismatchCount();
+        if (loggedTrades >= maxLoggedTrades) {
+            unloggedTrades++;
+            unloggedColumns += unmatchedColumns;
+            return;
+        }
+        loggedTrades++;
+        logger.info("Trade ID: " + record.getKey())
+                .info("Matched Columns: " + (numCols - 1 - unmatchedColumns))
+                .info("Unmatched Columns: " + unmatchedColumns);
+    }
+
+    @Override
+    public void finish(ComparisonResult comparisonResult) throws IOException {
+        logCounts(comparisonResult);
+        if (unloggedTrades > 0) {
+            logger.warning(unloggedTrades + " more trades with differences (" + unloggedColumns
+                    + " unmatched columns) not logged, limit is " + maxLoggedTrades
+                    + "; see report.html or report.xlsx for all differences");
+        }
+        logColumnStats(comparisonResult, Paths.get(outputDir, HEATMAP_FILE_NAME).toString());
+
+        extent.flush();
+
+        summary = new FileComparisonSummary(fileName, comparisonResult.getMatchedCells(), comparisonResult.getUnmatchedCells());
+        recordCount = comparisonResult.getRecordCount();
+    }
+
+    private void logCounts(ComparisonResult comparisonResult) {
+        // Fully matched trades are only counted, not logged one by one
+        logger.info("Fully Matched Trades: " + comparisonResult.getMatchedRecords())
+                .info("Trades With Differences: " + comparisonResult.getDifferenceCount())
+                .info("Total Matched Columns: " + comparisonResult.getMatchedCells())
+                .info("Total Unmatched Columns: " + comparisonResult.getUnmatchedCells());
+    }
+
+    /**
+     * Per-column drift as a table and an inline SVG heatmap, which needs no chart rendering. The
+     * heatmap is also written to {@code heatmapPath} unless it is null.
+     */
+    private void logColumnStats(ComparisonResult comparisonResult, String heatmapPath) throws IOException {
+        ColumnStats stats = comparisonResult.getColumnStats();
+        String[][] table = columnTable(comparisonResult.getHeaders(), stats);
+        if (table.length > 1) {
+            logger.info(MarkupHelper.createTable(table));
+        }
+        String heatmap = ColumnHeatmap.toSvg(comparisonResult.getHeaders(), stats);
+        if (heatmap != null) {
+            if (heatmapPath != null) {
+                Files.write(Paths.get(heatmapPath), heatmap.getBytes(StandardCharsets.UTF_8));
+            }
+            logger.info(heatmap);
+        }
+    }
+
+    private static String[][] columnTable(String[] headers, ColumnStats stats) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Column", "Mismatches", "Text Mismatches", "Max |Delta|", "Mean |Delta|"});
+        for (int j = 0; j < stats.getColumnCount(); j++) {
+            if (stats.getMismatches(j) > 0) {
+                rows.add(new String[]{
+                        headers[j],
+                        String.valueOf(stats.getMismatches(j)),
+                        String.valueOf(stats.getTextMismatches(j)),
+                        String.format(Locale.ROOT, "%.4g", stats.getMaxAbsDelta(j)),
+                        String.format(Locale.ROOT, "%.4g", stats.getMeanAbsDelta(j))
+                });
+            }
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    /**
+     * The summary for this file, available once {@link #finish(ComparisonResult)} has run.
+     */
+    public FileComparisonSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * The number of compared records, available once {@link #finish(ComparisonResult)} has run.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
@@ -0,0 +1,357 @@
+package org.example;
+
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Out-of-core keyed comparison for files larger than the heap. Each file is read once and spilled
+ * to sorted binary run files whenever the buffered rows reach the memory budget; the runs of each
+ * side are then k-way merged and the two sorted streams are merge-joined in a single sequential
+ * pass. Heap use is bounded by the budget plus the merge buffers, so file size is limited by disk.
+ *
+ * <p>Differences come out in key order. Duplicate keys are paired in the order they occur in
+ * each file, as in {@link FileComparisonUtils#compareFilesByKey}. Without configured key columns
+ * the first column is used.
+ */
+public class ExternalSortComparison {
+
+    public static final int DEFAULT_MEMORY_BUDGET_MB = 64;
+
+    // Run files merged at once; more runs than this are first merged in intermediate passes
+    static final int MAX_MERGE_FAN_IN = 64;
+
+    // Rough per-object overheads used to estimate the heap held by buffered rows
+    private static final int ROW_OVERHEAD = 64;
+    private static final int CELL_OVERHEAD = 48;
+
+    private static final Comparator<SortRecord> BY_KEY = Comparator.comparing(record -> record.key);
+
+    private final ComparisonOptions options;
+    private final long memoryBudget;
+    private final int ioBufferSize;
+
+    public ExternalSortComparison(ComparisonOptions options) {
+        this.options = options;
+        this.memoryBudget = Math.max(1, options.getExternalMemoryBudget());
+        this.ioBufferSize = (int) Math.max(8 * 1024, Math.min(64 * 1024, memoryBudget / (4 * MAX_MERGE_FAN_IN)));
+    }
+
+    /**
+     * Compares the two files and streams the differences to {@code sinks}. With no sinks the
+     * differences are retained in the returned result instead. The sinks are closed before this
+     * returns, also when the comparison fails.
+     */
+    public ComparisonResult run(String file1Path, String file2Path, List<ComparisonSink> sinks) throws IOException, CsvValidationException {
+        Path workDir = Files.createTempDirectory(Paths.get(options.getExternalTempDir()), "compare-sort-");
+        try {
+            SortedSide env1 = spill(file1Path, null, workDir.resolve("env1"));
+            if (env1.headers == null) {
+                throw new IllegalArgumentException("File is empty: " + file1Path);
+            }
+            SortedSide env2 = spill(file2Path, env1.keyColumns, workDir.resolve("env2"));
+            System.out.println("External sort: " + env1.runs.size() + " Env1 runs, " + env2.runs.size() + " Env2 runs in " + workDir);
+
+            ComparisonResult result = sinks.isEmpty()
+                    ? new ComparisonResult(env1.headers)
+                    : new ComparisonResult(env1.headers, record -> {
+                        try {
+                            for (ComparisonSink sink : sinks) {
+                                sink.accept(record);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            result.setLimit(MismatchLimit.from(options));
+            for (ComparisonSink sink : sinks) {
+                sink.start(result.getHeaders());
+            }
+            ComparisonAbortedException aborted = null;
+            try (MergedRuns sorted1 = merge(env1.runs, workDir.resolve("env1"));
+                 MergedRuns sorted2 = merge(env2.runs, workDir.resolve("env2"))) {
+                mergeJoin(sorted1, sorted2, env1.keyColumns, result);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (ComparisonAbortedException e) {
+                // The sinks still finish, so the reports show what was compared before the stop
+                aborted = e;
+            }
+            for (ComparisonSink sink : sinks) {
+                sink.finish(result);
+            }
+            if (aborted != null) {
+                throw aborted;
+            }
+            return result;
+        } finally {
+            // A no-op for sinks that finished; after a failure it drops their partial output
+            ReportUtils.closeQuietly(sinks);
+            deleteRecursively(workDir);
+        }
+    }
+
+    private void mergeJoin(MergedRuns env1, MergedRuns env2, int[] keyColumns, ComparisonResult result) throws IOException {
+        RowComparator comparator = new RowComparator(options.compileRules(Arrays.asList(result.getHeaders())), result.getColumnTypes(), options.isDigestEnabled());
+        int paired = 0;
+        SortRecord record1 = env1.next();
+        SortRecord record2 = env2.next();
+        while (record1 != null || record2 != null) {
+            int order = record1 == null ? 1 : record2 == null ? -1 : record1.key.compareTo(record2.key);
+            if (order == 0) {
+                comparator.compare(FileComparisonUtils.displayKey(record1.row, keyColumns), record1.row, record2.row, result);
+                paired++;
+                record1 = env1.next();
+                record2 = env2.next();
+            } else if (order < 0) {
+                comparator.addUnpaired(FileComparisonUtils.displayKey(record1.row, keyColumns), record1.row, true, result);
+                record1 = env1.next();
+            } else {
+                comparator.addUnpaired(FileComparisonUtils.displayKey(record2.row, keyColumns), record2.row, false, result);
+                record2 = env2.next();
+            }
+        }
+        System.out.println("Keyed comparison: " + paired + " paired, " + result.getOnlyInEnv1Records()
+                + " only in Env1, " + result.getOnlyInEnv2Records() + " only in Env2");
+    }
+
+    /**
+     * Reads one file into sorted run files of at most {@link #memoryBudget} estimated bytes each.
+     * Key columns are resolved from this file's header when {@code keyColumns} is null.
+     */
+    private SortedSide spill(String filePath, int[] keyColumns, Path runDir) throws IOException, CsvValidationException {
+        Files.createDirectories(runDir);
+        SortedSide side = new SortedSide(keyColumns);
+        List<SortRecord> buffer = new ArrayList<>();
+        long[] buffered = {0};
+        try {
+            ParsedFileCache.readRows(filePath, options, row -> {
+                if (side.headers == null) {
+                    side.headers = row;
+                    if (side.keyColumns == null) {
+                        side.keyColumns = options.isKeyed() ? options.resolveKeyColumns(row) : new int[]{0};
+                    }
+                    return;
+                }
+                String[] cells = row.toArray(new String[0]);
+                SortRecord record = new SortRecord(FileComparisonUtils.buildKey(row, side.keyColumns), Arrays.asList(cells));
+                buffer.add(record);
+                buffered[0] += estimateSize(record);
+                if (buffered[0] >= memoryBudget) {
+                    try {
+                        side.runs.add(writeRun(buffer, runDir, side.runs.size()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    buffer.clear();
+                    buffered[0] = 0;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (!buffer.isEmpty() || side.runs.isEmpty()) {
+            side.runs.add(writeRun(buffer, runDir, side.runs.size()));
+        }
+        return side;
+    }
+
+    private Path writeRun(List<SortRecord> records, Path runDir, int index) throws IOException {
+        // Stable sort keeps duplicate keys in file order, and runs are merged in creation order
+        records.sort(BY_KEY);
+        Path runFile = runDir.resolve("run_" + index + ".bin");
+        try (RunWriter writer = new RunWriter(runFile, records.size(), ioBufferSize)) {
+            for (SortRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return runFile;
+    }
+
+    /**
+     * Merges the runs into one sorted stream, first collapsing them in intermediate passes while
+     * there are more than {@link #MAX_MERGE_FAN_IN}.
+     */
+    private MergedRuns merge(List<Path> runs, Path runDir) throws IOException {
+        int pass = 0;
+        while (runs.size() > MAX_MERGE_FAN_IN) {
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_MERGE_FAN_IN) {
+                List<Path> group = runs.subList(from, Math.min(runs.size(), from + MAX_MERGE_FAN_IN));
+                Path runFile = runDir.resolve("pass_" + pass + "_" + merged.size() + ".bin");
+                try (MergedRuns input = new MergedRuns(group, ioBufferSize);
+                     RunWriter writer = new RunWriter(runFile, input.size(), ioBufferSize)) {
+                    SortRecord record;
+                    while ((record = input.next()) != null) {
+                        writer.write(record);
+                    }
+                }
+                for (Path consumed : group) {
+                    Files.delete(consumed);
+                }
+                merged.add(runFile);
+            }
+            runs = merged;
+            pass++;
+        }
+        return new MergedRuns(runs, ioBufferSize);
+    }
+
+    private static long estimateSize(SortRecord record) {
+        long size = ROW_OVERHEAD + CELL_OVERHEAD + 2L * record.key.length();
+        for (String cell : record.row) {
+            size += CELL_OVERHEAD + 2L * (cell == null ? 0 : cell.length());
+        }
+        return size;
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.out.println("Could not remove temporary sort files in " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static class SortRecord {
+        final String key;
+        final List<String> row;
+
+        SortRecord(String key, List<String> row) {
+            this.key = key;
+            this.row = row;
+        }
+    }
+
+    private static class SortedSide {
+        List<String> headers;
+        int[] keyColumns;
+        final List<Path> runs = new ArrayList<>();
+
+        SortedSide(int[] keyColumns) {
+            this.keyColumns = keyColumns;
+        }
+    }
+
+    /**
+     * Writes a run file: the record count, then per record the key and the cells.
+     */
+    private static class RunWriter implements Closeable {
+        private final BinaryRowOutput out;
+
+        RunWriter(Path file, long count, int bufferSize) throws IOException {
+            out = new BinaryRowOutput(new BufferedOutputStream(Files.newOutputStream(file), bufferSize));
+            out.writeVarint(count);
+        }
+
+        void write(SortRecord record) throws IOException {
+            out.writeString(record.key);
+            out.writeCells(record.row, record.row.size());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class RunReader implements Closeable {
+        private final BinaryRowInput in;
+        private final int index;
+        private long remaining;
+        SortRecord current;
+
+        RunReader(Path file, int index, int bufferSize) throws IOException {
+            this.in = new BinaryRowInput(new BufferedInputStream(Files.newInputStream(file), bufferSize));
+            this.index = index;
+            this.remaining = in.readVarint();
+        }
+
+        long size() {
+            return remaining;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                current = null;
+                return false;
+            }
+            remaining--;
+            String key = in.readString();
+            current = new SortRecord(key, Arrays.asList(in.readCells()));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs. Equal keys come from the earliest run first, so the merge is
+     * stable across runs.
+     */
+    private static class MergedRuns implements Closeable {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap;
+        private long size;
+
+        MergedRuns(List<Path> runs, int bufferSize) throws IOException {
+            heap = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                int order = a.current.key.compareTo(b.current.key);
+                return order != 0 ? order : Integer.compare(a.index, b.index);
+            });
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader reader = new RunReader(runs.get(i), i, bufferSize);
+                    readers.add(reader);
+                    size += reader.size();
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        SortRecord next() throws IOException {
+            ComparisonCancelledException.checkInterrupted();
+            RunReader reader = heap.poll();
+            if (reader == null) {
+                return null;
+            }
+            SortRecord record = reader.current;
+            if (reader.advance()) {
+                heap.add(reader);
+            }
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FileComparisonSummary {
+    private final String fileName;
+    private final long matchedColumns;
+    private final long unmatchedColumns;
+    private FileMetrics metrics;
+    private String abortReason;
+    private List<String> examples = new ArrayList<>();
+    private double sampleRate;
+
+    public FileComparisonSummary(String fileName, long matchedColumns, long unmatchedColumns) {
+        this.fileName = fileName;
+        this.matchedColumns = matchedColumns;
+        this.unmatchedColumns = unmatchedColumns;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getMatchedColumns() {
+        return matchedColumns;
+    }
+
+    public long getUnmatchedColumns() {
+        return unmatchedColumns;
+    }
+
+    /**
+     * The stage timings of this file's comparison, or null when none were recorded.
+     */
+    public FileMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(FileMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Whether the comparison was stopped by the fail-fast limits, either during the full run or
+     * on its sample. The column counts then cover only the records compared before the stop.
+     */
+    public boolean isAborted() {
+        return abortReason != null;
+    }
+
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * The first records with differences of an aborted comparison, one line each.
+     */
+    public List<String> getExamples() {
+        return Collections.unmodifiableList(examples);
+    }
+
+    public void setAborted(String abortReason, List<String> examples) {
+        this.abortReason = abortReason;
+        this.examples = new ArrayList<>(examples);
+    }
+
+    /**
+     * The share of records the counts were taken from, or 0 when the whole file was compared.
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -1,148 +1,260 @@
 package org.example;
 
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class FileComparisonUtils {
 
+    // Default absolute tolerance for numeric cells, used by columns without their own rule
+    public static final double NUMERIC_TOLERANCE = 0.5;
+
     public static List<List<String>> readCSV(String filePath) throws IOException, CsvValidationException {
         List<List<String>> records = new ArrayList<>();
-        try (CSVReader csvReader = new CSVReader(new FileReader(filePath))) {
-            String[] values;
-            while ((values = csvReader.readNext()) != null) {
-                List<String> row = new ArrayList<>();
-                for (String value : values) {
-                    row.add(value);
-                }
-                records.add(row);
-            }
-        }
+        readCSV(filePath, records::add);
         return records;
     }
 
+    /**
+     * Streams the rows of a comma-separated file. Rows are backed by the memory-mapped file and
+     * fields are decoded only when read, see {@link MappedDelimitedReader}.
+     */
+    public static void readCSV(String filePath, Consumer<List<String>> rowHandler) throws IOException, CsvValidationException {
+        MappedDelimitedReader.readCsv(filePath, rowHandler);
+    }
+
     public static List<List<String>> readExcel(String filePath) throws IOException {
         List<List<String>> records = new ArrayList<>();
-        try (InputStream is = Files.newInputStream(Paths.get(filePath));
-             Workbook workbook = new XSSFWorkbook(is)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            for (Row row : sheet) {
-                List<String> rowData = new ArrayList<>();
-                for (Cell cell : row) {
-                    rowData.add(cell.toString());
-                }
-                records.add(rowData);
-            }
-        }
+        readExcel(filePath, records::add);
         return records;
     }
 
+    /**
+     * Streams the first sheet of an .xlsx or legacy .xls workbook, told apart by their leading
+     * bytes, see {@link FileFormat}.
+     */
+    public static void readExcel(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        if (FileFormat.detect(filePath) == FileFormat.XLS) {
+            StreamingXlsReader.read(filePath, rowHandler);
+        } else {
+            // The streaming reader validates the package while reading it, no separate open needed
+            StreamingExcelReader.read(filePath, rowHandler);
+        }
+    }
+
+    /**
+     * Streams every sheet of an .xlsx or legacy .xls workbook; {@code sheetHandler} is given each
+     * sheet name and returns the consumer for that sheet's rows. Reading stops with a
+     * {@link ComparisonCancelledException} once the thread is interrupted.
+     */
+    public static void readSheets(String filePath, Function<String, Consumer<List<String>>> sheetHandler) throws IOException {
+        Function<String, Consumer<List<String>>> cancellable = name -> {
+            Consumer<List<String>> rowHandler = sheetHandler.apply(name);
+            return row -> {
+                ComparisonCancelledException.checkInterrupted();
+                rowHandler.accept(row);
+            };
+        };
+        if (FileFormat.detect(filePath) == FileFormat.XLS) {
+            StreamingXlsReader.readSheets(filePath, cancellable);
+        } else {
+            StreamingExcelReader.readSheets(filePath, cancellable);
+        }
+    }
+
     public static List<List<String>> readTextFile(String filePath) throws IOException {
         List<List<String>> records = new ArrayList<>();
-        List<String> lines = Files.readAllLines(Paths.get(filePath));
-        for (String line : lines) {
-            List<String> rowData = new ArrayList<>();
-            for (String value : line.split("\\t")) {  // Assuming tab-separated values
-                rowData.add(value);
-            }
-            records.add(rowData);
-        }
+        readTextFile(filePath, records::add);
         return records;
     }
 
-    public static List<String[]> compareFiles(List<List<String>> file1Data, List<List<String>> file2Data) {
-        List<String[]> results = new ArrayList<>();
+    /**
+     * Streams the rows of a tab-separated file. Rows are backed by the memory-mapped file and
+     * fields are decoded only when read, see {@link MappedDelimitedReader}.
+     */
+    public static void readTextFile(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        MappedDelimitedReader.readTabDelimited(filePath, rowHandler);
+    }
 
-        int numRows = Math.max(file1Data.size(), file2Data.size());
+    /**
+     * Streams the rows of a .csv, .txt, .xlsx or .xls file to {@code rowHandler}, choosing the
+     * reader from the file's format, see {@link FileFormat}.
+     */
+    public static void readRows(String filePath, Consumer<List<String>> rowHandler) throws IOException, CsvValidationException {
+        switch (FileFormat.detect(filePath)) {
+            case CSV:
+                readCSV(filePath, rowHandler);
+                break;
+            case TAB_DELIMITED:
+                readTextFile(filePath, rowHandler);
+                break;
+            case XLS:
+                StreamingXlsReader.read(filePath, rowHandler);
+                break;
+            default:
+                StreamingExcelReader.read(filePath, rowHandler);
+                break;
+        }
+    }
+
+    /**
+     * Whether the file has a header row. Reading stops at the first row, so this is cheap even
+     * for a file too large to load.
+     */
+    public static boolean hasRows(String filePath) throws IOException, CsvValidationException {
+        try {
+            readRows(filePath, row -> {
+                throw new FirstRowRead();
+            });
+            return false;
+        } catch (FirstRowRead e) {
+            return true;
+        }
+    }
+
+    public static ComparisonResult compareFiles(List<List<String>> file1Data, List<List<String>> file2Data) {
+        return compareFiles(file1Data, file2Data, ComparisonOptions.defaults());
+    }
+
+    public static ComparisonResult compareFiles(List<List<String>> file1Data, List<List<String>> file2Data, ComparisonOptions options) {
         List<String> headers = file1Data.get(0);
-        int numCols = headers.size();
+        ComparisonResult result = new ComparisonResult(headers);
+        result.setLimit(MismatchLimit.from(options));
+        RowComparator comparator = new RowComparator(options.compileRules(headers), result.getColumnTypes(), options.isDigestEnabled());
 
+        int numRows = Math.max(file1Data.size(), file2Data.size());
+        List<String> missing = new ArrayList<>();
         for (int i = 1; i < numRows; i++) {
-            List<String> row1 = i < file1Data.size() ? file1Data.get(i) : new ArrayList<>();
-            List<String> row2 = i < file2Data.size() ? file2Data.get(i) : new ArrayList<>();
+            List<String> row1 = i < file1Data.size() ? file1Data.get(i) : missing;
+            List<String> row2 = i < file2Data.size() ? file2Data.get(i) : missing;
 
             String tradeId = i < file1Data.size() ? row1.get(0) : row2.get(0);
-            String[] tradeIdRow = new String[numCols];
-            tradeIdRow[0] = tradeId;
-            for (int j = 1; j < numCols; j++) {
-                tradeIdRow[j] = headers.get(j);
-            }
-            results.add(tradeIdRow);
-
-            results.add(createRowData("Data in Env1", row1, row2, numCols));
-            results.add(createRowData("Data in Env2", row2, row1, numCols));
-            results.add(createDifferenceRow(row1, row2, numCols));
+            comparator.compare(tradeId, row1, row2, result);
         }
 
-        return results;
+        return result;
     }
 
-    private static String[] createRowData(String label, List<String> rowData, List<String> comparisonData, int numCols) {
-        String[] row = new String[numCols];
-        row[0] = label;
-        for (int j = 1; j < numCols; j++) {
-            String cellValue = rowData.size() > j ? rowData.get(j) : "";
-            String compareValue = comparisonData.size() > j ? comparisonData.get(j) : "";
-            if (cellValue.equals(compareValue)) {
-                row[j] = cellValue;
-            } else {
-                row[j] = cellValue;
+    /**
+     * Compares two files by record key instead of row position. Env2 is indexed in a hash map
+     * keyed on {@code keyColumns} and probed with every Env1 row, so an inserted or reordered
+     * record only affects itself. Paired records are reported in Env1 order, followed by the
+     * records found only in Env1 and then those found only in Env2.
+     */
+    public static ComparisonResult compareFilesByKey(List<List<String>> file1Data, List<List<String>> file2Data, int[] keyColumns) {
+        return compareFilesByKey(file1Data, file2Data, keyColumns, ComparisonOptions.defaults());
+    }
+
+    public static ComparisonResult compareFilesByKey(List<List<String>> file1Data, List<List<String>> file2Data, int[] keyColumns, ComparisonOptions options) {
+        List<String> headers = file1Data.get(0);
+        ComparisonResult result = new ComparisonResult(headers);
+        result.setLimit(MismatchLimit.from(options));
+        RowComparator comparator = new RowComparator(options.compileRules(headers), result.getColumnTypes(), options.isDigestEnabled());
+
+        BitSet pairedInEnv2 = new BitSet(file2Data.size());
+        int[] partners = pairByKey(file1Data, file2Data, keyColumns, pairedInEnv2);
+        for (int i = 1; i < file1Data.size(); i++) {
+            if (partners[i] >= 0) {
+                List<String> row1 = file1Data.get(i);
+                comparator.compare(displayKey(row1, keyColumns), row1, file2Data.get(partners[i]), result);
             }
         }
-        return row;
-    }
-
-    private static String[] createDifferenceRow(List<String> row1, List<String> row2, int numCols) {
-        String[] row = new String[numCols];
-        row[0] = "Difference";
-        for (int j = 1; j < numCols; j++) {
-            if (j < row1.size() && j < row2.size()) {
-                double value1 = parseDouble(row1.get(j));
-                double value2 = parseDouble(row2.get(j));
-                if (!Double.isNaN(value1) && !Double.isNaN(value2)) {
-                    double difference = value1 - value2;
-                    if (Math.abs(difference) > 0.5) {
-                        row[j] = String.valueOf(difference);
-                    } else {
-                        row[j] = "matched";
-                    }
-                } else if (row1.get(j).equals(row2.get(j))) {
-                    row[j] = "matched";
-                } else {
-                    row[j] = row1.get(j) + " | " + row2.get(j);
-                }
+        addUnpairedByKey(file1Data, file2Data, keyColumns, partners, pairedInEnv2, comparator, result);
+        return result;
+    }
+
+    /**
+     * Pairs Env1 rows with Env2 rows by key. Env2 is indexed in a hash map and probed with every
+     * Env1 row in order; duplicate keys pair in the order they occur. Returns the Env2 row paired
+     * with each Env1 row, or -1, and marks the paired Env2 rows in {@code pairedInEnv2}.
+     */
+    static int[] pairByKey(List<List<String>> file1Data, List<List<String>> file2Data, int[] keyColumns, BitSet pairedInEnv2) {
+        // Index Env2: first row per key, with duplicates chained through next[]
+        Map<String, Integer> index = new HashMap<>(Math.max(16, file2Data.size() * 4 / 3));
+        int[] next = new int[file2Data.size()];
+        int[] last = new int[file2Data.size()];
+        Arrays.fill(next, -1);
+        for (int i = 1; i < file2Data.size(); i++) {
+            String key = buildKey(file2Data.get(i), keyColumns);
+            Integer head = index.putIfAbsent(key, i);
+            if (head != null) {
+                next[last[head]] = i;
+                last[head] = i;
             } else {
-                row[j] = "matched";
+                last[i] = i;
+            }
+        }
+
+        int[] partners = new int[file1Data.size()];
+        partners[0] = -1;
+        for (int i = 1; i < file1Data.size(); i++) {
+            Integer head = index.get(buildKey(file1Data.get(i), keyColumns));
+            int match = head == null ? -1 : head;
+            while (match >= 0 && pairedInEnv2.get(match)) {
+                match = next[match];
+            }
+            partners[i] = match;
+            if (match >= 0) {
+                pairedInEnv2.set(match);
             }
         }
-        return row;
+        return partners;
     }
 
+    /**
+     * Adds the records found only in Env1 and then those found only in Env2, after the paired ones.
+     */
+    static void addUnpairedByKey(List<List<String>> file1Data, List<List<String>> file2Data, int[] keyColumns, int[] partners,
+                                 BitSet pairedInEnv2, RowComparator comparator, ComparisonResult result) {
+        for (int i = 1; i < file1Data.size(); i++) {
+            if (partners[i] < 0) {
+                List<String> row1 = file1Data.get(i);
+                comparator.addUnpaired(displayKey(row1, keyColumns), row1, true, result);
+            }
+        }
+        for (int i = pairedInEnv2.nextClearBit(1); i < file2Data.size(); i = pairedInEnv2.nextClearBit(i + 1)) {
+            List<String> row2 = file2Data.get(i);
+            comparator.addUnpaired(displayKey(row2, keyColumns), row2, false, result);
+        }
 
+        System.out.println("Keyed comparison: " + pairedInEnv2.cardinality() + " paired, " + result.getOnlyInEnv1Records()
+                + " only in Env1, " + result.getOnlyInEnv2Records() + " only in Env2");
+    }
 
-    private static double parseDouble(String str) {
-        try {
-            return Double.parseDouble(str);
-        } catch (NumberFormatException e) {
-            return Double.NaN;
+    static String buildKey(List<String> row, int[] keyColumns) {
+        if (keyColumns.length == 1) {
+            return cellAt(row, keyColumns[0]);
+        }
+        StringBuilder key = new StringBuilder();
+        for (int k = 0; k < keyColumns.length; k++) {
+            if (k > 0) {
+                key.append('\u001F');
+            }
+            key.append(cellAt(row, keyColumns[k]));
         }
+        return key.toString();
     }
 
-    private static boolean isNumeric(String str) {
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+    static String displayKey(List<String> row, int[] keyColumns) {
+        return buildKey(row, keyColumns).replace('\u001F', '|');
+    }
+
+    static String cellAt(List<String> row, int index) {
+        return index < row.size() ? row.get(index) : "";
+    }
+
+    // Stops a read at its first row, see hasRows
+    private static class FirstRowRead extends RuntimeException {
+        FirstRowRead() {
+            super(null, null, false, false);
         }
     }
 }
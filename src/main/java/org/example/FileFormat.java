@@ -0,0 +1,48 @@
+package org.example;
+
+import org.apache.poi.poifs.filesystem.FileMagic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Input file formats. Workbooks are recognised by their leading bytes rather than their name, so
+ * a legacy .xls saved with an .xlsx extension, or the other way round, is still read by the right
+ * reader. Delimited text has no signature, so its delimiter still comes from the extension.
+ */
+public enum FileFormat {
+    XLSX,
+    XLS,
+    CSV,
+    TAB_DELIMITED;
+
+    public boolean isWorkbook() {
+        return this == XLSX || this == XLS;
+    }
+
+    public static FileFormat detect(String filePath) throws IOException {
+        FileMagic magic = FileMagic.valueOf(new File(filePath));
+        switch (magic) {
+            case OOXML:
+                return XLSX;
+            case OLE2:
+                return XLS;
+            case BIFF2:
+            case BIFF3:
+            case BIFF4:
+                throw new IllegalArgumentException("Excel 2.x-4.x files are not supported, save as .xls or .xlsx: " + filePath);
+            default:
+                break;
+        }
+        String name = filePath.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        } else if (name.endsWith(".txt")) {
+            return TAB_DELIMITED;
+        } else if (name.endsWith(".xlsx") || name.endsWith(".xls")) {
+            throw new IllegalArgumentException("File is not a valid Excel file: " + filePath);
+        }
+        throw new IllegalArgumentException("Unsupported file format: " + filePath);
+    }
+}
@@ -0,0 +1,162 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall time, throughput and memory for each stage of one file's comparison. Stages are measured
+ * with try-with-resources:
+ *
+ * <pre>
+ * try (FileMetrics.Stage stage = metrics.start("compare")) {
+ *     ...
+ *     stage.addRows(result.getRecordCount());
+ * }
+ * </pre>
+ *
+ * <p>Allocated bytes are those of the measuring thread, so work a stage hands to other threads
+ * (pipelined sinks, fork-join chunks) is not included. Peak heap is process-wide: the heap pools'
+ * peaks are reset when a stage starts while no other stage is running, never under a running
+ * one. A stage's peak is therefore an upper bound, and with several files compared at once it also
+ * covers the other files' stages that overlapped it.
+ */
+public class FileMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    // Stages running in any FileMetrics; guarded by the class lock
+    private static int runningStages;
+
+    private final String fileName;
+    private final List<StageMetrics> stages = new ArrayList<>();
+    private final long startNanos = System.nanoTime();
+    private final long startAllocated = allocatedBytes();
+    private long totalNanos = -1;
+    private long totalAllocated = -1;
+
+    public FileMetrics(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public synchronized List<StageMetrics> getStages() {
+        return Collections.unmodifiableList(new ArrayList<>(stages));
+    }
+
+    public Stage start(String stageName) {
+        return new Stage(stageName);
+    }
+
+    /**
+     * Ends the measurement of the file as a whole. The total carries the largest row count of any
+     * stage, the bytes read by all stages and the largest stage peak.
+     */
+    public synchronized StageMetrics finish() {
+        if (totalNanos < 0) {
+            totalNanos = System.nanoTime() - startNanos;
+            long allocated = allocatedBytes();
+            totalAllocated = startAllocated < 0 || allocated < 0 ? -1 : allocated - startAllocated;
+        }
+        long rows = 0;
+        long bytes = 0;
+        long peak = -1;
+        for (StageMetrics stage : stages) {
+            rows = Math.max(rows, stage.getRows());
+            bytes += stage.getBytesRead();
+            peak = Math.max(peak, stage.getPeakHeapBytes());
+        }
+        return new StageMetrics("total", totalNanos, rows, bytes, totalAllocated, peak);
+    }
+
+    private synchronized void add(StageMetrics stage) {
+        stages.add(stage);
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static synchronized void stageStarted() {
+        if (runningStages++ == 0) {
+            resetHeapPeaks();
+        }
+    }
+
+    // Read before the stage stops counting as running, so no reset can happen in between
+    private static synchronized long stageFinished() {
+        long peak = heapPeak();
+        runningStages--;
+        return peak;
+    }
+
+    private static void resetHeapPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * One running stage. Closing it records its metrics in the owning {@link FileMetrics}.
+     */
+    public class Stage implements AutoCloseable {
+        private final String name;
+        private final long start;
+        private final long allocatedAtStart;
+        private long rows;
+        private long bytesRead;
+        private boolean closed;
+
+        private Stage(String name) {
+            this.name = name;
+            stageStarted();
+            this.allocatedAtStart = allocatedBytes();
+            this.start = System.nanoTime();
+        }
+
+        public Stage addRows(long count) {
+            rows += count;
+            return this;
+        }
+
+        public Stage addBytes(long count) {
+            bytesRead += count;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long wall = System.nanoTime() - start;
+            long allocated = allocatedBytes();
+            long peak = stageFinished();
+            add(new StageMetrics(name, wall, rows, bytesRead,
+                    allocatedAtStart < 0 || allocated < 0 ? -1 : allocated - allocatedAtStart, peak));
+        }
+    }
+}
@@ -1,7 +1,47 @@
 package org.example;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Command line entry point.
+ *
+ * <pre>
+ * run   &lt;config.properties&gt; &lt;DataSheet.xlsx&gt; &lt;outputDir&gt;   compare the flagged reports once
+ * serve &lt;config.properties&gt; &lt;outputDir&gt;                  start the {@link ComparisonService}
+ * </pre>
+ */
 public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello world!");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 4 && "run".equals(args[0])) {
+            Properties props = loadProperties(args[1]);
+            List<ComparisonJob> jobs = BatchComparisonRunner.loadJobs(args[2], props);
+            ComparisonRun run = BatchComparisonRunner.fromProperties(props).run(jobs, args[3]);
+            // Files stopped by the fail-fast limits fail the run as well
+            boolean aborted = run.getSummaries().stream().anyMatch(FileComparisonSummary::isAborted);
+            System.exit(run.getFailures().isEmpty() && !aborted ? 0 : 1);
+        } else if (args.length == 3 && "serve".equals(args[0])) {
+            ComparisonService service = new ComparisonService(loadProperties(args[1]), args[2]);
+            service.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+            // The service threads are daemons, so the main thread keeps the JVM up
+            Thread.currentThread().join();
+        } else {
+            System.out.println("Usage:");
+            System.out.println("  run <config.properties> <DataSheet.xlsx> <outputDir>");
+            System.out.println("  serve <config.properties> <outputDir>");
+            System.exit(2);
+        }
+    }
+
+    private static Properties loadProperties(String path) throws IOException {
+        Properties props = new Properties();
+        try (FileInputStream in = new FileInputStream(path)) {
+            props.load(in);
+        }
+        return props;
     }
-}
\ No newline at end of file
+}
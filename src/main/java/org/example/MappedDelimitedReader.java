@@ -0,0 +1,206 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads delimited text files through a memory-mapped {@link FileChannel}. Delimiters are found by
+ * scanning the mapped bytes directly and each row is handed out as a {@link ByteSliceRow}, which
+ * records field offsets and only decodes a field to a String when it is asked for. Files are
+ * mapped in windows so files larger than 2 GB are read the same way.
+ *
+ * <p>Files are read as UTF-8. Lines end at {@code \n}, {@code \r\n} or {@code \r}. In quoted mode
+ * fields follow RFC 4180: a field starting with a double quote runs to the matching closing quote,
+ * may contain delimiters and line breaks, and {@code ""} stands for one quote.
+ *
+ * <p>Malformed quoting is read leniently and differs from OpenCSV's {@code CSVReader}:
+ * <ul>
+ *     <li>text after a closing quote is dropped, so {@code 1,"q"junk,3} gives {@code q} where
+ *     OpenCSV gives {@code q"junk};</li>
+ *     <li>a quote that does not start the field is an ordinary character, so in {@code 1, "x" ,3}
+ *     the middle field keeps its spaces and quotes, and {@code x"y} is read as is where OpenCSV
+ *     rejects it;</li>
+ *     <li>an unterminated quote runs to the end of the file instead of failing.</li>
+ * </ul>
+ * Line breaks inside a quoted field are kept as written, where OpenCSV turns {@code \r\n} into
+ * {@code \n}.
+ */
+public class MappedDelimitedReader {
+
+    public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final byte delimiter;
+    private final boolean quoted;
+    private final boolean dropTrailingEmptyFields;
+    private final int windowSize;
+
+    // Start and end offsets of the fields of the record being parsed; an inverted end marks a field with "" escapes
+    private int[] fieldOffsets = new int[64];
+    private int fieldCount;
+
+    /**
+     * A reader that maps {@code windowSize} bytes at a time. Records that straddle a window are
+     * parsed again from the start of the next one, and a record longer than the window grows it.
+     */
+    public MappedDelimitedReader(char delimiter, boolean quoted, boolean dropTrailingEmptyFields, int windowSize) {
+        this.delimiter = (byte) delimiter;
+        this.quoted = quoted;
+        this.dropTrailingEmptyFields = dropTrailingEmptyFields;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Reads a comma-separated file with quoted fields.
+     */
+    public static void readCsv(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        new MappedDelimitedReader(',', true, false, DEFAULT_WINDOW_SIZE).read(filePath, rowHandler);
+    }
+
+    /**
+     * Reads a tab-separated file without quoting. Trailing empty fields are dropped, as
+     * {@code line.split("\\t")} does.
+     */
+    public static void readTabDelimited(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        new MappedDelimitedReader('\t', false, true, DEFAULT_WINDOW_SIZE).read(filePath, rowHandler);
+    }
+
+    public void read(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long window = windowSize;
+            while (position < size) {
+                long length = Math.min(window, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = parseWindow(buffer, (int) length, position + length == size, rowHandler);
+                if (consumed == 0) {
+                    // A single record is longer than the window
+                    window = Math.min(Integer.MAX_VALUE, window * 2);
+                    continue;
+                }
+                position += consumed;
+                window = windowSize;
+            }
+        }
+    }
+
+    /**
+     * Parses the complete records in a window and returns the number of bytes they span. The
+     * incomplete record at the end of a window that is not the last is left for the next window.
+     */
+    private int parseWindow(ByteBuffer buffer, int limit, boolean last, Consumer<List<String>> rowHandler) {
+        int position = 0;
+        while (position < limit) {
+            int next = parseRecord(buffer, position, limit, last);
+            if (next < 0) {
+                break;
+            }
+            rowHandler.accept(new ByteSliceRow(buffer, Arrays.copyOf(fieldOffsets, fieldCount * 2)));
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Parses one record into {@link #fieldOffsets} and returns the offset of the next record, or
+     * -1 when the record runs past the end of a window that is not the last.
+     */
+    private int parseRecord(ByteBuffer buffer, int start, int limit, boolean last) {
+        fieldCount = 0;
+        int p = start;
+        while (true) {
+            if (quoted && p < limit && buffer.get(p) == QUOTE) {
+                int fieldStart = ++p;
+                boolean escaped = false;
+                while (true) {
+                    if (p >= limit) {
+                        if (!last) {
+                            return -1;
+                        }
+                        break; // Unterminated quote runs to the end of the file
+                    }
+                    if (buffer.get(p) == QUOTE) {
+                        if (p + 1 < limit && buffer.get(p + 1) == QUOTE) {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        if (p + 1 >= limit && !last) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    p++;
+                }
+                addField(fieldStart, escaped ? ~p : p);
+                // Skip the closing quote and anything between it and the next delimiter
+                while (p < limit && buffer.get(p) != delimiter && buffer.get(p) != LF && buffer.get(p) != CR) {
+                    p++;
+                }
+            } else {
+                int fieldStart = p;
+                while (p < limit) {
+                    byte b = buffer.get(p);
+                    if (b == delimiter || b == LF || b == CR) {
+                        break;
+                    }
+                    p++;
+                }
+                addField(fieldStart, p);
+            }
+
+            if (p >= limit) {
+                if (!last) {
+                    return -1;
+                }
+                finishRecord();
+                return limit;
+            }
+            byte b = buffer.get(p);
+            if (b == delimiter) {
+                p++;
+                continue;
+            }
+            if (b == CR) {
+                if (p + 1 >= limit && !last) {
+                    return -1;
+                }
+                if (p + 1 < limit && buffer.get(p + 1) == LF) {
+                    p++;
+                }
+            }
+            finishRecord();
+            return p + 1;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount * 2 == fieldOffsets.length) {
+            fieldOffsets = Arrays.copyOf(fieldOffsets, fieldOffsets.length * 2);
+        }
+        fieldOffsets[fieldCount * 2] = start;
+        fieldOffsets[fieldCount * 2 + 1] = end;
+        fieldCount++;
+    }
+
+    private void finishRecord() {
+        // An empty line stays a single empty field, as with String.split
+        if (!dropTrailingEmptyFields || fieldCount == 1) {
+            return;
+        }
+        while (fieldCount > 0 && fieldOffsets[fieldCount * 2 - 2] == fieldOffsets[fieldCount * 2 - 1]) {
+            fieldCount--;
+        }
+    }
+}
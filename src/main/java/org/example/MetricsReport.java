@@ -0,0 +1,143 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the {@link FileMetrics} of a run as {@code metrics.json} and {@code metrics.csv}, and
+ * as the table shown in the consolidated report. Every file has one row per stage followed by a
+ * {@code total} row.
+ */
+public class MetricsReport {
+
+    public static final String JSON_FILE_NAME = "metrics.json";
+    public static final String CSV_FILE_NAME = "metrics.csv";
+
+    static final String[] COLUMNS = {"file", "stage", "wallMillis", "rows", "rowsPerSecond", "bytesRead", "allocatedBytes", "peakHeapBytes"};
+
+    private MetricsReport() {
+    }
+
+    public static void write(List<FileComparisonSummary> summaries, String baseOutputPath) throws IOException {
+        writeJson(summaries, Paths.get(baseOutputPath, JSON_FILE_NAME).toString());
+        writeCsv(summaries, Paths.get(baseOutputPath, CSV_FILE_NAME).toString());
+    }
+
+    public static void writeJson(List<FileComparisonSummary> summaries, String path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            writer.write("{\"files\":[");
+            boolean firstFile = true;
+            for (FileComparisonSummary summary : summaries) {
+                FileMetrics metrics = summary.getMetrics();
+                if (metrics == null) {
+                    continue;
+                }
+                writer.write(firstFile ? "\n" : ",\n");
+                firstFile = false;
+                writer.write("  {\"file\":" + jsonString(metrics.getFileName()) + ",\"stages\":[");
+                List<StageMetrics> stages = metrics.getStages();
+                for (int i = 0; i < stages.size(); i++) {
+                    writer.write(i == 0 ? "\n    " : ",\n    ");
+                    writer.write(jsonStage(stages.get(i)));
+                }
+                writer.write("\n  ],\"total\":" + jsonStage(metrics.finish()) + "}");
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    public static void writeCsv(List<FileComparisonSummary> summaries, String path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", COLUMNS));
+            writer.newLine();
+            for (String[] row : rows(summaries)) {
+                for (int j = 0; j < row.length; j++) {
+                    if (j > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvField(row[j]));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * The metrics as a table with a header row, for the consolidated report.
+     */
+    static String[][] table(List<FileComparisonSummary> summaries) {
+        List<String[]> rows = rows(summaries);
+        rows.add(0, COLUMNS);
+        return rows.toArray(new String[0][]);
+    }
+
+    private static List<String[]> rows(List<FileComparisonSummary> summaries) {
+        List<String[]> rows = new ArrayList<>();
+        for (FileComparisonSummary summary : summaries) {
+            FileMetrics metrics = summary.getMetrics();
+            if (metrics == null) {
+                continue;
+            }
+            for (StageMetrics stage : metrics.getStages()) {
+                rows.add(row(metrics.getFileName(), stage));
+            }
+            rows.add(row(metrics.getFileName(), metrics.finish()));
+        }
+        return rows;
+    }
+
+    private static String[] row(String fileName, StageMetrics stage) {
+        return new String[]{
+                fileName,
+                stage.getStage(),
+                format(stage.getWallMillis()),
+                String.valueOf(stage.getRows()),
+                format(stage.getRowsPerSecond()),
+                String.valueOf(stage.getBytesRead()),
+                String.valueOf(stage.getAllocatedBytes()),
+                String.valueOf(stage.getPeakHeapBytes())
+        };
+    }
+
+    private static String jsonStage(StageMetrics stage) {
+        return "{\"stage\":" + jsonString(stage.getStage())
+                + ",\"wallMillis\":" + format(stage.getWallMillis())
+                + ",\"rows\":" + stage.getRows()
+                + ",\"rowsPerSecond\":" + format(stage.getRowsPerSecond())
+                + ",\"bytesRead\":" + stage.getBytesRead()
+                + ",\"allocatedBytes\":" + stage.getAllocatedBytes()
+                + ",\"peakHeapBytes\":" + stage.getPeakHeapBytes() + "}";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    static String jsonString(String value) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
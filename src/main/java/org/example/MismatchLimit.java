@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The fail-fast thresholds of one comparison: a number of records with differences, and a share
+ * of the records compared so far, checked once enough records have been seen that one early
+ * difference cannot trip it. Keeps the first records with differences as examples for the abort
+ * summary, since streamed results do not keep their records.
+ */
+class MismatchLimit {
+
+    private final int maxMismatches;
+    private final double maxMismatchRate;
+    private final int minRecords;
+    private final int maxExamples;
+    private final List<String> examples = new ArrayList<>();
+
+    MismatchLimit(int maxMismatches, double maxMismatchRate, int minRecords, int maxExamples) {
+        this.maxMismatches = maxMismatches;
+        this.maxMismatchRate = maxMismatchRate;
+        this.minRecords = minRecords;
+        this.maxExamples = maxExamples;
+    }
+
+    /**
+     * A new limit for one comparison, or null when fail-fast is off.
+     */
+    static MismatchLimit from(ComparisonOptions options) {
+        if (options.getFailFastMaxMismatches() <= 0 && options.getFailFastMaxMismatchRate() <= 0) {
+            return null;
+        }
+        return new MismatchLimit(options.getFailFastMaxMismatches(), options.getFailFastMaxMismatchRate(),
+                options.getFailFastMinRecords(), options.getFailFastExamples());
+    }
+
+    void check(ComparisonResult result, RecordDifference difference) {
+        if (examples.size() < maxExamples) {
+            examples.add(describe(result.getHeaders(), difference));
+        }
+        String reason = exceeded(result);
+        if (reason != null) {
+            throw new ComparisonAbortedException(reason, result, examples);
+        }
+    }
+
+    /**
+     * Checks a result that was compared without the limit, such as the merged chunks of a
+     * {@link ParallelComparison}, taking the examples from its retained differences.
+     */
+    void checkCompleted(ComparisonResult result) {
+        String reason = exceeded(result);
+        if (reason != null) {
+            for (RecordDifference difference : result.getDifferences()) {
+                if (examples.size() >= maxExamples) {
+                    break;
+                }
+                examples.add(describe(result.getHeaders(), difference));
+            }
+            throw new ComparisonAbortedException(reason, result, examples);
+        }
+    }
+
+    /**
+     * Why {@code result} is over the limits, or null when it is not.
+     */
+    String exceeded(ComparisonResult result) {
+        int differences = result.getDifferenceCount();
+        if (maxMismatches > 0 && differences >= maxMismatches) {
+            return differences + " records with differences, limit is " + maxMismatches;
+        }
+        int records = result.getRecordCount();
+        if (maxMismatchRate > 0 && records > 0 && records >= minRecords
+                && differences > maxMismatchRate * records) {
+            return String.format(Locale.ROOT, "%.1f%% of %d records have differences, limit is %.1f%%",
+                    100.0 * differences / records, records, 100 * maxMismatchRate);
+        }
+        return null;
+    }
+
+    List<String> getExamples() {
+        return examples;
+    }
+
+    static String describe(String[] headers, RecordDifference difference) {
+        if (difference.getStatus() != RecordDifference.Status.MISMATCHED) {
+            return difference.getKey() + ": " + difference.getDifferenceText(0);
+        }
+        StringBuilder text = new StringBuilder(difference.getKey()).append(':');
+        BitSet columns = difference.getMismatchedColumns();
+        int k = 0;
+        for (int j = columns.nextSetBit(0); j >= 0; j = columns.nextSetBit(j + 1), k++) {
+            text.append(k == 0 ? " " : ", ")
+                    .append(j < headers.length ? headers[j] : String.valueOf(j)).append(' ')
+                    .append(difference.getEnv1Value(k)).append(" | ").append(difference.getEnv2Value(k));
+        }
+        return text.toString();
+    }
+}
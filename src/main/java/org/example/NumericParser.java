@@ -0,0 +1,163 @@
+package org.example;
+
+/**
+ * Exception-free decimal parsing for the comparison hot path. {@link #parse(String)} accepts the
+ * same decimal forms as {@link Double#parseDouble(String)} and returns NaN instead of throwing for
+ * anything else, so text cells cost a short scan rather than a {@link NumberFormatException}.
+ */
+public class NumericParser {
+
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MAX_MANTISSA_DIGITS = 18;
+
+    private NumericParser() {
+    }
+
+    /**
+     * Parses {@code value} as a decimal number, or returns NaN when it is not one. Hexadecimal
+     * floating-point literals are treated as text.
+     */
+    public static double parse(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        int start = 0;
+        int end = value.length();
+        // Double.parseDouble ignores leading and trailing whitespace, so do the same
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = value.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            if (++i == end) {
+                return Double.NaN;
+            }
+        }
+        if (value.charAt(i) == 'I') {
+            if (end - i == 8 && value.startsWith("Infinity", i)) {
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            return Double.NaN;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean exact = true;
+
+        for (; i < end && isDigit(c = value.charAt(i)); i++) {
+            anyDigits = true;
+            if (significantDigits < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+            } else {
+                exact = false;
+                exponent++;
+            }
+        }
+        if (i < end && value.charAt(i) == '.') {
+            for (i++; i < end && isDigit(c = value.charAt(i)); i++) {
+                anyDigits = true;
+                if (significantDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (!anyDigits) {
+            return Double.NaN;
+        }
+
+        if (i < end && (value.charAt(i) == 'e' || value.charAt(i) == 'E')) {
+            if (++i == end) {
+                return Double.NaN;
+            }
+            boolean negativeExponent = false;
+            c = value.charAt(i);
+            if (c == '+' || c == '-') {
+                negativeExponent = c == '-';
+                if (++i == end) {
+                    return Double.NaN;
+                }
+            }
+            int explicitExponent = 0;
+            boolean anyExponentDigits = false;
+            for (; i < end && isDigit(c = value.charAt(i)); i++) {
+                anyExponentDigits = true;
+                if (explicitExponent < 100000) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+            if (!anyExponentDigits) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        // Java float/double literal suffixes are accepted by Double.parseDouble
+        if (i == end - 1) {
+            c = value.charAt(i);
+            if (c == 'd' || c == 'D' || c == 'f' || c == 'F') {
+                i++;
+            }
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // Both operands are exact, so one IEEE operation gives the correctly rounded result
+            double result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -result : result;
+        }
+        // Already validated, so this cannot throw
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * Cheap pre-check: whether the first non-blank character could start a number.
+     */
+    public static boolean mayBeNumeric(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > ' ') {
+                return isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'I';
+            }
+        }
+        return false;
+    }
+
+    public static boolean isNumeric(String value) {
+        return !Double.isNaN(parse(value));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
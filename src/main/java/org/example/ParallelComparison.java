@@ -0,0 +1,201 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares in-memory files on a {@link ForkJoinPool}. The compared rows are split into chunks,
+ * each chunk is diffed into its own partial result, and the partials are merged left to right,
+ * so the result, and every report written from it, is identical to a sequential comparison.
+ *
+ * <p>Keyed comparisons pair the rows by key sequentially first, which is cheap hash work, and
+ * only the cell-by-cell comparison of the paired rows runs in parallel. Column types are sampled
+ * from the same rows as in a sequential run before the chunks are forked.
+ */
+public class ParallelComparison {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final ComparisonOptions options;
+    private final int chunkSize;
+
+    public ParallelComparison(ComparisonOptions options) {
+        this.options = options;
+        // Chunks must cover the column type sample so that forked chunks never sample concurrently
+        this.chunkSize = Math.max(ColumnTypes.SAMPLE_ROWS, options.getParallelChunkSize());
+    }
+
+    public ComparisonResult compareFiles(List<List<String>> file1Data, List<List<String>> file2Data) {
+        int numRows = Math.max(file1Data.size(), file2Data.size());
+        if (numRows - 1 <= chunkSize) {
+            return FileComparisonUtils.compareFiles(file1Data, file2Data, options);
+        }
+        List<String> missing = new ArrayList<>();
+        RowPairs pairs = new RowPairs() {
+            @Override
+            public List<String> env1(int i) {
+                return i + 1 < file1Data.size() ? file1Data.get(i + 1) : missing;
+            }
+
+            @Override
+            public List<String> env2(int i) {
+                return i + 1 < file2Data.size() ? file2Data.get(i + 1) : missing;
+            }
+
+            @Override
+            public String key(int i) {
+                return i + 1 < file1Data.size() ? env1(i).get(0) : env2(i).get(0);
+            }
+        };
+        ComparisonResult result = new ComparisonResult(file1Data.get(0));
+        compareInParallel(pairs, numRows - 1, result);
+        return result;
+    }
+
+    public ComparisonResult compareFilesByKey(List<List<String>> file1Data, List<List<String>> file2Data, int[] keyColumns) {
+        if (Math.max(file1Data.size(), file2Data.size()) - 1 <= chunkSize) {
+            return FileComparisonUtils.compareFilesByKey(file1Data, file2Data, keyColumns, options);
+        }
+        BitSet pairedInEnv2 = new BitSet(file2Data.size());
+        int[] partners = FileComparisonUtils.pairByKey(file1Data, file2Data, keyColumns, pairedInEnv2);
+        int[] pairedRows = new int[pairedInEnv2.cardinality()];
+        int count = 0;
+        for (int i = 1; i < partners.length; i++) {
+            if (partners[i] >= 0) {
+                pairedRows[count++] = i;
+            }
+        }
+
+        RowPairs pairs = new RowPairs() {
+            @Override
+            public List<String> env1(int i) {
+                return file1Data.get(pairedRows[i]);
+            }
+
+            @Override
+            public List<String> env2(int i) {
+                return file2Data.get(partners[pairedRows[i]]);
+            }
+
+            @Override
+            public String key(int i) {
+                return FileComparisonUtils.displayKey(env1(i), keyColumns);
+            }
+        };
+        ComparisonResult result = new ComparisonResult(file1Data.get(0));
+        compareInParallel(pairs, pairedRows.length, result);
+
+        RowComparator comparator = new RowComparator(options.compileRules(file1Data.get(0)), result.getColumnTypes(), options.isDigestEnabled());
+        FileComparisonUtils.addUnpairedByKey(file1Data, file2Data, keyColumns, partners, pairedInEnv2, comparator, result);
+        return result;
+    }
+
+    private void compareInParallel(RowPairs pairs, int count, ComparisonResult result) {
+        for (int i = 0; i < Math.min(count, ColumnTypes.SAMPLE_ROWS); i++) {
+            result.getColumnTypes().observe(pairs.env1(i));
+        }
+        // Rules are immutable, so all chunks share one compiled set
+        ColumnRule[] rules = options.compileRules(Arrays.asList(result.getHeaders()));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ChunkTask task = new ChunkTask(pairs, rules, 0, count, result, cancelled);
+        int threads = options.getParallelThreads();
+        if (threads <= 0) {
+            result.merge(await(ForkJoinPool.commonPool().submit(task), cancelled));
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            result.merge(await(pool.submit(task), cancelled));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Waits for the chunks, interruptibly unlike {@code invoke}. Pool threads are never
+     * interrupted themselves, so when the wait ends without a result, because the caller was
+     * interrupted or a chunk failed, the chunks still running are stopped through
+     * {@code cancelled}.
+     */
+    private static ComparisonResult await(ForkJoinTask<ComparisonResult> task, AtomicBoolean cancelled) {
+        boolean completed = false;
+        try {
+            ComparisonResult result = task.get();
+            completed = true;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ComparisonCancelledException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (!completed) {
+                cancelled.set(true);
+            }
+        }
+    }
+
+    /**
+     * The i-th pair of rows to compare, in the order a sequential comparison visits them.
+     */
+    private interface RowPairs {
+        List<String> env1(int i);
+
+        List<String> env2(int i);
+
+        String key(int i);
+    }
+
+    private class ChunkTask extends RecursiveTask<ComparisonResult> {
+        private final RowPairs pairs;
+        private final ColumnRule[] rules;
+        private final int from;
+        private final int to;
+        private final ComparisonResult target;
+        private final AtomicBoolean cancelled;
+
+        ChunkTask(RowPairs pairs, ColumnRule[] rules, int from, int to, ComparisonResult target, AtomicBoolean cancelled) {
+            this.pairs = pairs;
+            this.rules = rules;
+            this.from = from;
+            this.to = to;
+            this.target = target;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected ComparisonResult compute() {
+            if (to - from > chunkSize) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(pairs, rules, from, middle, target, cancelled);
+                ChunkTask right = new ChunkTask(pairs, rules, middle, to, target, cancelled);
+                right.fork();
+                ComparisonResult merged = left.compute();
+                merged.merge(right.join());
+                return merged;
+            }
+            ComparisonResult part = new ComparisonResult(target.getHeaders(), target.getColumnTypes());
+            RowComparator comparator = new RowComparator(rules, part.getColumnTypes(), options.isDigestEnabled());
+            for (int i = from; i < to; i++) {
+                if (cancelled.get()) {
+                    throw new ComparisonCancelledException();
+                }
+                comparator.compare(pairs.key(i), pairs.env1(i), pairs.env2(i), part);
+            }
+            return part;
+        }
+    }
+}
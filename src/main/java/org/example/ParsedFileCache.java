@@ -0,0 +1,244 @@
+package org.example;
+
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of parsed input files. Each entry holds the rows of one file in the compact
+ * {@link BinaryRowOutput} encoding together with a digest per row, and is keyed by the file's
+ * absolute path and validated against its size and content hash. An unchanged file is replayed
+ * from its entry without running POI or the delimited readers, and because the rows carry their
+ * digests the comparator only diffs rows whose digests differ. Only when the modification time is
+ * trusted is an unchanged size and modification time taken as proof without hashing the file.
+ *
+ * <p>Entries are written to a temporary file and moved into place once complete. When the cache
+ * grows past its size cap the least recently used entries are deleted.
+ */
+public class ParsedFileCache {
+
+    public static final long DEFAULT_MAX_SIZE_MB = 1024;
+
+    private static final int MAGIC = 0x46434331; // "FCC1"
+    private static final int VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".rows";
+    // Offset of the modification time in the entry header: magic, version, size
+    private static final int MODIFIED_OFFSET = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Object EVICTION_LOCK = new Object();
+
+    private final Path cacheDir;
+    private final long maxSize;
+    private final boolean trustModifiedTime;
+
+    public ParsedFileCache(String cacheDir, long maxSize) {
+        this(cacheDir, maxSize, false);
+    }
+
+    public ParsedFileCache(String cacheDir, long maxSize, boolean trustModifiedTime) {
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxSize = maxSize;
+        this.trustModifiedTime = trustModifiedTime;
+    }
+
+    /**
+     * Streams the rows of {@code filePath} through the cache when it is enabled in
+     * {@code options}, and straight from the file otherwise. Reading stops with a
+     * {@link ComparisonCancelledException} once the thread is interrupted.
+     */
+    public static void readRows(String filePath, ComparisonOptions options, Consumer<List<String>> rowHandler) throws IOException, CsvValidationException {
+        Consumer<List<String>> cancellable = row -> {
+            ComparisonCancelledException.checkInterrupted();
+            rowHandler.accept(row);
+        };
+        if (options.isCacheEnabled()) {
+            new ParsedFileCache(options.getCacheDir(), options.getCacheMaxSize(), options.isCacheTrustModifiedTime()).read(filePath, cancellable);
+        } else {
+            FileComparisonUtils.readRows(filePath, cancellable);
+        }
+    }
+
+    public void read(String filePath, Consumer<List<String>> rowHandler) throws IOException, CsvValidationException {
+        Files.createDirectories(cacheDir);
+        Path source = Paths.get(filePath).toAbsolutePath().normalize();
+        long size = Files.size(source);
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        Path entry = cacheDir.resolve(Long.toHexString(new XxHash64().update(source.toString()).digest()) + ENTRY_SUFFIX);
+
+        long contentHash = 0;
+        boolean hashed = false;
+        if (Files.exists(entry)) {
+            try (BinaryRowInput in = new BinaryRowInput(new BufferedInputStream(Files.newInputStream(entry), BUFFER_SIZE))) {
+                EntryHeader header = readHeader(in);
+                if (header != null && header.size == size && header.path.equals(source.toString())) {
+                    boolean fresh = trustModifiedTime && header.modified == modified;
+                    if (!fresh) {
+                        // Timestamps can be as coarse as two seconds and survive a same-size rewrite
+                        contentHash = XxHash64.hashFile(filePath);
+                        hashed = true;
+                        fresh = contentHash == header.contentHash;
+                    }
+                    if (fresh) {
+                        int rows = replay(in, rowHandler);
+                        if (header.modified != modified) {
+                            updateModified(entry, modified);
+                        }
+                        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                        System.out.println("Loaded " + rows + " rows of " + filePath + " from cache");
+                        return;
+                    }
+                }
+            }
+        }
+
+        if (!hashed) {
+            contentHash = XxHash64.hashFile(filePath);
+        }
+        write(filePath, source.toString(), size, modified, contentHash, entry, rowHandler);
+        evict();
+    }
+
+    private int replay(BinaryRowInput in, Consumer<List<String>> rowHandler) throws IOException {
+        int rows = 0;
+        long marker;
+        while ((marker = in.readVarint()) != 0) {
+            long digest = in.readLong();
+            String[] cells = new String[(int) marker - 1];
+            for (int j = 0; j < cells.length; j++) {
+                cells[j] = in.readString();
+            }
+            rowHandler.accept(new DigestedRow(cells, digest));
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Parses the file, handing each row on as it is written to a new entry. Each row is stored as
+     * its cell count plus one, its digest and its cells; a zero count ends the entry.
+     */
+    private void write(String filePath, String path, long size, long modified, long contentHash, Path entry,
+                       Consumer<List<String>> rowHandler) throws IOException, CsvValidationException {
+        Path temp = Files.createTempFile(cacheDir, "entry", ".tmp");
+        boolean moved = false;
+        try {
+            try (BinaryRowOutput out = new BinaryRowOutput(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeLong(contentHash);
+                out.writeString(path);
+
+                XxHash64 hasher = new XxHash64();
+                FileComparisonUtils.readRows(filePath, row -> {
+                    String[] cells = row.toArray(new String[0]);
+                    DigestedRow digested = new DigestedRow(cells, RowComparator.digest(hasher, Arrays.asList(cells)));
+                    try {
+                        out.writeVarint(cells.length + 1L);
+                        out.writeLong(digested.getDigest());
+                        for (String cell : cells) {
+                            out.writeString(cell);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rowHandler.accept(digested);
+                });
+                out.writeVarint(0);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits its size cap.
+     */
+    private void evict() throws IOException {
+        synchronized (EVICTION_LOCK) {
+            List<Path> entries = new ArrayList<>();
+            try (Stream<Path> paths = Files.list(cacheDir)) {
+                paths.filter(path -> path.toString().endsWith(ENTRY_SUFFIX)).forEach(entries::add);
+            }
+            long total = 0;
+            for (Path entry : entries) {
+                total += entry.toFile().length();
+            }
+            if (total <= maxSize) {
+                return;
+            }
+            entries.sort(Comparator.comparingLong(entry -> entry.toFile().lastModified()));
+            for (Path entry : entries) {
+                if (total <= maxSize) {
+                    break;
+                }
+                long length = entry.toFile().length();
+                if (entry.toFile().delete()) {
+                    total -= length;
+                    System.out.println("Evicted cache entry " + entry.getFileName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an entry header, or returns null when the entry is from another version or unreadable.
+     */
+    private static EntryHeader readHeader(BinaryRowInput in) {
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            EntryHeader header = new EntryHeader();
+            header.size = in.readLong();
+            header.modified = in.readLong();
+            header.contentHash = in.readLong();
+            header.path = in.readString();
+            return header;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void updateModified(Path entry, long modified) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(entry.toFile(), "rw")) {
+            file.seek(MODIFIED_OFFSET);
+            file.writeLong(modified);
+        }
+    }
+
+    private static class EntryHeader {
+        long size;
+        long modified;
+        long contentHash;
+        String path;
+    }
+}
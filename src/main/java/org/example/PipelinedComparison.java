@@ -0,0 +1,357 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs read, compare and report as concurrent stages connected by bounded queues. Both files are
+ * parsed on their own threads, the calling thread compares rows as they arrive, and every sink
+ * writes on its own thread from the same stream of differences. Wall-clock time approaches that
+ * of the slowest stage, and memory is bounded by the queue sizes rather than the file sizes.
+ *
+ * <p>Keyed comparisons use a symmetric hash join: a row waits in a pending map only until its
+ * partner arrives from the other file, so aligned files keep almost nothing in memory. Paired
+ * records are emitted when the pair completes, followed by the unpaired Env1 and Env2 records.
+ */
+public class PipelinedComparison {
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    // How long a failed run waits for its stage threads to stop before returning anyway
+    private static final long STAGE_STOP_TIMEOUT_SECONDS = 30;
+
+    // Identity-compared end-of-stream markers
+    private static final List<String> END_OF_ROWS = new ArrayList<>(0);
+
+    private final ComparisonOptions options;
+    private final int queueSize;
+
+    public PipelinedComparison(ComparisonOptions options) {
+        this.options = options;
+        this.queueSize = Math.max(1, options.getPipelineQueueSize());
+    }
+
+    /**
+     * Compares the two files and streams the differences to {@code sinks}. The returned result
+     * holds the counts only; the records themselves have gone to the sinks. The sinks are not
+     * closed; when this returns, normally or not, their threads have stopped using them and the
+     * caller can close them.
+     */
+    public ComparisonResult run(String file1Path, String file2Path, List<ComparisonSink> sinks) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService stages = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-stage-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            RowSource env1 = new RowSource(file1Path, options, queueSize);
+            RowSource env2 = new RowSource(file2Path, options, queueSize);
+            stages.execute(env1);
+            stages.execute(env2);
+
+            List<String> headers = env1.take();
+            env2.take(); // Env2 header row
+            if (headers == null) {
+                throw new IllegalArgumentException("File is empty: " + file1Path);
+            }
+
+            List<SinkStage> sinkStages = new ArrayList<>();
+            List<Future<?>> sinkFutures = new ArrayList<>();
+            ComparisonResult result = new ComparisonResult(headers, record -> {
+                for (SinkStage stage : sinkStages) {
+                    stage.put(record);
+                }
+            });
+            for (ComparisonSink sink : sinks) {
+                SinkStage stage = new SinkStage(sink, result.getHeaders(), queueSize);
+                sinkStages.add(stage);
+                sinkFutures.add(stages.submit(stage));
+            }
+
+            result.setLimit(MismatchLimit.from(options));
+            RowComparator comparator = new RowComparator(options.compileRules(headers), result.getColumnTypes(), options.isDigestEnabled());
+            ComparisonAbortedException aborted = null;
+            try {
+                if (options.isKeyed()) {
+                    compareByKey(env1, env2, options.resolveKeyColumns(headers), comparator, result);
+                } else {
+                    compareByPosition(env1, env2, comparator, result);
+                }
+            } catch (ComparisonAbortedException e) {
+                // The sinks still finish, so the reports show what was compared before the stop
+                aborted = e;
+            }
+
+            for (SinkStage stage : sinkStages) {
+                stage.put(result);
+            }
+            for (int i = 0; i < sinkFutures.size(); i++) {
+                await(sinkFutures.get(i));
+                if (sinkStages.get(i).error != null) {
+                    throw new IOException("Report sink failed: " + sinks.get(i).getClass().getSimpleName(), sinkStages.get(i).error);
+                }
+            }
+            if (aborted != null) {
+                throw aborted;
+            }
+            return result;
+        } finally {
+            stages.shutdownNow();
+            awaitStopped(stages);
+        }
+    }
+
+    /**
+     * Waits for the interrupted stage threads, so a sink is never closed while its thread still
+     * writes to it. A stage only notices the interrupt between rows, which takes a moment at most.
+     */
+    private static void awaitStopped(ExecutorService stages) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (!stages.awaitTermination(STAGE_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        System.out.println("Pipeline stages still running after " + STAGE_STOP_TIMEOUT_SECONDS + " seconds");
+                    }
+                    return;
+                } catch (InterruptedException e) {
+                    // The caller was cancelled, but the sinks still must not be closed under a stage
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void compareByPosition(RowSource env1, RowSource env2, RowComparator comparator, ComparisonResult result) throws IOException {
+        List<String> missing = new ArrayList<>();
+        while (true) {
+            List<String> row1 = env1.take();
+            List<String> row2 = env2.take();
+            if (row1 == null && row2 == null) {
+                return;
+            }
+            String tradeId = row1 != null ? row1.get(0) : row2.get(0);
+            comparator.compare(tradeId, row1 != null ? row1 : missing, row2 != null ? row2 : missing, result);
+        }
+    }
+
+    private static void compareByKey(RowSource env1, RowSource env2, int[] keyColumns, RowComparator comparator, ComparisonResult result) throws IOException {
+        Map<String, ArrayDeque<List<String>>> pending1 = new LinkedHashMap<>();
+        Map<String, ArrayDeque<List<String>>> pending2 = new LinkedHashMap<>();
+        int paired = 0;
+
+        // Alternate strictly between the sources so the output order depends only on the data
+        while (!env1.isDrained() || !env2.isDrained()) {
+            List<String> row1 = env1.take();
+            if (row1 != null) {
+                List<String> row2 = takePending(pending2, FileComparisonUtils.buildKey(row1, keyColumns), pending1, row1);
+                if (row2 != null) {
+                    comparator.compare(FileComparisonUtils.displayKey(row1, keyColumns), row1, row2, result);
+                    paired++;
+                }
+            }
+            List<String> row2 = env2.take();
+            if (row2 != null) {
+                List<String> match = takePending(pending1, FileComparisonUtils.buildKey(row2, keyColumns), pending2, row2);
+                if (match != null) {
+                    comparator.compare(FileComparisonUtils.displayKey(match, keyColumns), match, row2, result);
+                    paired++;
+                }
+            }
+        }
+
+        for (ArrayDeque<List<String>> rows : pending1.values()) {
+            for (List<String> row : rows) {
+                comparator.addUnpaired(FileComparisonUtils.displayKey(row, keyColumns), row, true, result);
+            }
+        }
+        for (ArrayDeque<List<String>> rows : pending2.values()) {
+            for (List<String> row : rows) {
+                comparator.addUnpaired(FileComparisonUtils.displayKey(row, keyColumns), row, false, result);
+            }
+        }
+
+        System.out.println("Keyed comparison: " + paired + " paired, " + result.getOnlyInEnv1Records()
+                + " only in Env1, " + result.getOnlyInEnv2Records() + " only in Env2");
+    }
+
+    /**
+     * Returns the waiting partner for {@code key} from {@code other}, or parks {@code row} in
+     * {@code own} until its partner arrives.
+     */
+    private static List<String> takePending(Map<String, ArrayDeque<List<String>>> other, String key,
+                                            Map<String, ArrayDeque<List<String>>> own, List<String> row) {
+        ArrayDeque<List<String>> waiting = other.get(key);
+        if (waiting != null) {
+            List<String> partner = waiting.poll();
+            if (waiting.isEmpty()) {
+                other.remove(key);
+            }
+            return partner;
+        }
+        own.computeIfAbsent(key, k -> new ArrayDeque<>(1)).add(row);
+        return null;
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for pipeline stage", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Pipeline stage failed", e.getCause());
+        }
+    }
+
+    private static void putInterruptibly(BlockingQueue<Object> queue, Object item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineCancelledException(e);
+        }
+    }
+
+    /**
+     * Reads one file on a stage thread into a bounded row queue.
+     */
+    private static class RowSource implements Runnable {
+        private final String filePath;
+        private final ComparisonOptions options;
+        private final BlockingQueue<Object> queue;
+        private volatile Throwable error;
+        private boolean drained;
+
+        RowSource(String filePath, ComparisonOptions options, int queueSize) {
+            this.filePath = filePath;
+            this.options = options;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        @Override
+        public void run() {
+            try {
+                ParsedFileCache.readRows(filePath, options, row -> putInterruptibly(queue, row));
+            } catch (PipelineCancelledException e) {
+                return;
+            } catch (Throwable t) {
+                error = t;
+            }
+            try {
+                queue.put(END_OF_ROWS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        boolean isDrained() {
+            return drained;
+        }
+
+        /**
+         * Next row, or null once the file is exhausted.
+         */
+        @SuppressWarnings("unchecked")
+        List<String> take() throws IOException {
+            if (drained) {
+                return null;
+            }
+            Object row;
+            try {
+                row = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + filePath, e);
+            }
+            if (row == END_OF_ROWS) {
+                drained = true;
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                } else if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                } else if (error != null) {
+                    throw new IOException("Failed to read " + filePath, error);
+                }
+                return null;
+            }
+            return (List<String>) row;
+        }
+    }
+
+    /**
+     * Feeds one sink on a stage thread. A failing sink keeps draining its queue so it never
+     * blocks the comparator or the other sinks.
+     */
+    private static class SinkStage implements Runnable {
+        private final ComparisonSink sink;
+        private final String[] headers;
+        private final BlockingQueue<Object> queue;
+        private volatile Throwable error;
+
+        SinkStage(ComparisonSink sink, String[] headers, int queueSize) {
+            this.sink = sink;
+            this.headers = headers;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        void put(Object item) {
+            putInterruptibly(queue, item);
+        }
+
+        @Override
+        public void run() {
+            try {
+                sink.start(headers);
+            } catch (Throwable t) {
+                error = t;
+            }
+            while (true) {
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    if (item instanceof ComparisonResult) {
+                        if (error == null) {
+                            sink.finish((ComparisonResult) item);
+                        }
+                        return;
+                    }
+                    if (error == null) {
+                        sink.accept((RecordDifference) item);
+                    }
+                } catch (Throwable t) {
+                    error = t;
+                }
+            }
+        }
+    }
+
+    private static class PipelineCancelledException extends RuntimeException {
+        PipelineCancelledException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.BitSet;
+
+/**
+ * The differences found for one record. Only mismatching cells carry a payload: the set bits of
+ * {@link #getMismatchedColumns()} name the columns, and the value and delta arrays hold one entry
+ * per set bit in ascending column order.
+ */
+public class RecordDifference {
+
+    public enum Status {
+        MISMATCHED,
+        ONLY_IN_ENV1,
+        ONLY_IN_ENV2
+    }
+
+    private final String key;
+    private final Status status;
+    private final BitSet mismatchedColumns;
+    private final String[] env1Values;
+    private final String[] env2Values;
+    private final double[] deltas;
+    // Indexed like the value arrays; null when no cell was rejected by a numeric tolerance
+    private final BitSet outOfTolerance;
+
+    RecordDifference(String key, Status status, BitSet mismatchedColumns, String[] env1Values, String[] env2Values,
+                     double[] deltas, BitSet outOfTolerance) {
+        this.key = key;
+        this.status = status;
+        this.mismatchedColumns = mismatchedColumns;
+        this.env1Values = env1Values;
+        this.env2Values = env2Values;
+        this.deltas = deltas;
+        this.outOfTolerance = outOfTolerance;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public BitSet getMismatchedColumns() {
+        return mismatchedColumns;
+    }
+
+    public int getMismatchCount() {
+        return env1Values.length;
+    }
+
+    /**
+     * Column index of the {@code k}-th mismatching cell. Prefer walking
+     * {@link #getMismatchedColumns()} with {@code nextSetBit} when visiting every cell.
+     */
+    public int getColumn(int k) {
+        int column = mismatchedColumns.nextSetBit(0);
+        for (int i = 0; i < k; i++) {
+            column = mismatchedColumns.nextSetBit(column + 1);
+        }
+        return column;
+    }
+
+    public String getEnv1Value(int k) {
+        return env1Values[k];
+    }
+
+    public String getEnv2Value(int k) {
+        return env2Values[k];
+    }
+
+    /**
+     * Numeric difference Env1 - Env2 for the {@code k}-th mismatching cell, or NaN when either
+     * side is not a number.
+     */
+    public double getDelta(int k) {
+        return deltas[k];
+    }
+
+    public boolean isNumeric(int k) {
+        return !Double.isNaN(deltas[k]);
+    }
+
+    /**
+     * The text shown in the Difference row of the reports.
+     */
+    public String getDifferenceText(int k) {
+        switch (status) {
+            case ONLY_IN_ENV1:
+                return "Only in Env1";
+            case ONLY_IN_ENV2:
+                return "Only in Env2";
+            default:
+                return isNumeric(k) ? String.valueOf(deltas[k]) : env1Values[k] + " | " + env2Values[k];
+        }
+    }
+
+    /**
+     * Whether the {@code k}-th cell was rejected by its column's numeric rule, i.e. both values are
+     * numbers further apart than the tolerance. Cells rejected by any other rule, numbers included,
+     * are text differences and never out of tolerance.
+     */
+    public boolean isOutOfTolerance(int k) {
+        return outOfTolerance != null && outOfTolerance.get(k);
+    }
+}
@@ -0,0 +1,32 @@
+package org.example;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The per-file outputs a comparison can write, selected with {@code report.formats}.
+ */
+public enum ReportFormat {
+    /** report.html, see {@link StreamingHtmlReportWriter}. */
+    HTML,
+    /** report.xlsx, see {@link StreamingExcelReportWriter}. */
+    EXCEL,
+    /** ExtentReport.html, see {@link ExtentReportSink}. */
+    EXTENT,
+    /** One line per mismatching cell, see {@link DeltaReportWriter}. */
+    DELTA;
+
+    /**
+     * Parses a comma-separated list such as {@code html,delta}.
+     */
+    public static Set<ReportFormat> parse(String formats) {
+        Set<ReportFormat> parsed = EnumSet.noneOf(ReportFormat.class);
+        for (String format : formats.split(",")) {
+            if (!format.trim().isEmpty()) {
+                parsed.add(valueOf(format.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,148 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compares rows cell by cell with one compiled {@link ColumnRule} per column and records only
+ * the mismatching cells. Scratch arrays are reused across rows so a fully matching row
+ * allocates nothing.
+ */
+class RowComparator {
+    private final int numCols;
+    private final ColumnRule[] rules;
+    private final String[] env1Scratch;
+    private final String[] env2Scratch;
+    private final double[] deltaScratch;
+    private final ColumnTypes columnTypes;
+    // Non-null when rows are first compared by digest, see ComparisonOptions.isDigestEnabled()
+    private final XxHash64 hasher;
+
+    RowComparator(ColumnRule[] rules, ColumnTypes columnTypes, boolean rowDigests) {
+        this.numCols = rules.length;
+        this.rules = rules;
+        this.columnTypes = columnTypes;
+        this.hasher = rowDigests ? new XxHash64() : null;
+        this.env1Scratch = new String[numCols];
+        this.env2Scratch = new String[numCols];
+        this.deltaScratch = new double[numCols];
+    }
+
+    void compare(String key, List<String> row1, List<String> row2, ComparisonResult result) {
+        ComparisonCancelledException.checkInterrupted();
+        columnTypes.observe(row1);
+        // Rows with equal digests are treated as identical and skip the cell diff; cached rows
+        // carry their digests, so those are used even when digests are not enabled
+        boolean cached = hasStoredDigest(row1) && hasStoredDigest(row2);
+        if (cached ? storedDigest(row1) == storedDigest(row2)
+                : hasher != null && digest(row1) == digest(row2)) {
+            result.addMatchedRecord();
+            return;
+        }
+        BitSet mismatched = null;
+        BitSet outOfTolerance = null;
+        int count = 0;
+        boolean sliced = row1 instanceof ByteSliceRow && row2 instanceof ByteSliceRow;
+        boolean encoded = row1 instanceof DictionaryTable.Row && row2 instanceof DictionaryTable.Row;
+        for (int j = 1; j < numCols; j++) {
+            // Cells missing on either side are treated as matched
+            if (j >= row1.size() || j >= row2.size()) {
+                continue;
+            }
+            // Mapped rows compare raw bytes first, so matching cells are never decoded
+            if (sliced && ((ByteSliceRow) row1).fieldEquals(j, (ByteSliceRow) row2, j)) {
+                continue;
+            }
+            // Table rows compare dictionary codes or numbers, so matching cells are never decoded
+            if (encoded && ((DictionaryTable.Row) row1).cellEquals(j, (DictionaryTable.Row) row2)) {
+                continue;
+            }
+            String value1 = row1.get(j);
+            String value2 = row2.get(j);
+            // Equal text is equal under every rule, so skip the rule entirely
+            if (value1.equals(value2)) {
+                continue;
+            }
+            if (rules[j].matches(value1, value2)) {
+                continue;
+            }
+            // The numeric difference is only reported, so text columns skip the parse
+            double delta = Double.NaN;
+            if (columnTypes.getType(j) != ColumnTypes.Type.TEXT
+                    || (NumericParser.mayBeNumeric(value1) && NumericParser.mayBeNumeric(value2))) {
+                delta = NumericParser.parse(value1) - NumericParser.parse(value2);
+            }
+            if (mismatched == null) {
+                mismatched = new BitSet(numCols);
+            }
+            mismatched.set(j);
+            // Only a numeric rule compares numbers against a tolerance; other rules reject the text
+            if (rules[j] instanceof ColumnRules.NumericRule && !Double.isNaN(delta)) {
+                if (outOfTolerance == null) {
+                    outOfTolerance = new BitSet();
+                }
+                outOfTolerance.set(count);
+            }
+            env1Scratch[count] = value1;
+            env2Scratch[count] = value2;
+            deltaScratch[count] = delta;
+            count++;
+        }
+
+        if (mismatched == null) {
+            result.addMatchedRecord();
+        } else {
+            result.addDifference(new RecordDifference(key, RecordDifference.Status.MISMATCHED, mismatched,
+                    Arrays.copyOf(env1Scratch, count), Arrays.copyOf(env2Scratch, count), Arrays.copyOf(deltaScratch, count), outOfTolerance));
+        }
+    }
+
+    private static boolean hasStoredDigest(List<String> row) {
+        return row instanceof DigestedRow || (row instanceof DictionaryTable.Row && ((DictionaryTable.Row) row).hasDigest());
+    }
+
+    private static long storedDigest(List<String> row) {
+        return row instanceof DigestedRow ? ((DigestedRow) row).getDigest() : ((DictionaryTable.Row) row).getDigest();
+    }
+
+    private long digest(List<String> row) {
+        if (hasStoredDigest(row)) {
+            return storedDigest(row);
+        }
+        if (row instanceof ByteSliceRow) {
+            ((ByteSliceRow) row).hashInto(hasher.reset());
+            return hasher.digest();
+        }
+        return digest(hasher, row);
+    }
+
+    /**
+     * Digest of a row's decoded cells, framed by the cell count and each cell's length.
+     */
+    static long digest(XxHash64 hasher, List<String> row) {
+        hasher.reset().update(row.size());
+        for (String cell : row) {
+            hasher.update(cell.length());
+            hasher.update(cell);
+        }
+        return hasher.digest();
+    }
+
+    void addUnpaired(String key, List<String> row, boolean inEnv1, ComparisonResult result) {
+        ComparisonCancelledException.checkInterrupted();
+        BitSet mismatched = new BitSet(numCols);
+        mismatched.set(1, numCols);
+        String[] values = new String[numCols - 1];
+        String[] missing = new String[numCols - 1];
+        double[] deltas = new double[numCols - 1];
+        for (int j = 1; j < numCols; j++) {
+            values[j - 1] = FileComparisonUtils.cellAt(row, j);
+            missing[j - 1] = "";
+            deltas[j - 1] = Double.NaN;
+        }
+        result.addDifference(new RecordDifference(key,
+                inEnv1 ? RecordDifference.Status.ONLY_IN_ENV1 : RecordDifference.Status.ONLY_IN_ENV2, mismatched,
+                inEnv1 ? values : missing, inEnv1 ? missing : values, deltas, null));
+    }
+}
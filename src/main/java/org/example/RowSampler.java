@@ -0,0 +1,45 @@
+package org.example;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Passes the header row and a fixed share of the other rows on to another consumer. Rows are
+ * picked by a hash of their key, or of their row number when the comparison is positional, so
+ * both files keep the same records and the sample pairs up exactly as the full files would.
+ */
+class RowSampler implements Consumer<List<String>> {
+
+    private final ComparisonOptions options;
+    private final Consumer<List<String>> target;
+    private final XxHash64 hasher = new XxHash64();
+    // Rows whose hash, scaled to [0, 1), falls below this are kept
+    private final double rate;
+    private int[] keyColumns;
+    private int rowNumber;
+
+    RowSampler(ComparisonOptions options, Consumer<List<String>> target) {
+        this.options = options;
+        this.target = target;
+        this.rate = options.getSampleRate();
+    }
+
+    @Override
+    public void accept(List<String> row) {
+        if (keyColumns == null) {
+            keyColumns = options.isKeyed() ? options.resolveKeyColumns(row) : new int[0];
+            target.accept(row);
+            return;
+        }
+        rowNumber++;
+        hasher.reset();
+        if (keyColumns.length > 0) {
+            hasher.update(FileComparisonUtils.buildKey(row, keyColumns));
+        } else {
+            hasher.update(rowNumber);
+        }
+        if ((hasher.digest() >>> 11) * 0x1.0p-53 < rate) {
+            target.accept(row);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+/**
+ * Measurements of one stage of a file comparison. Byte counts are -1 when the JVM cannot
+ * report them.
+ */
+public class StageMetrics {
+
+    private final String stage;
+    private final long wallNanos;
+    private final long rows;
+    private final long bytesRead;
+    private final long allocatedBytes;
+    private final long peakHeapBytes;
+
+    public StageMetrics(String stage, long wallNanos, long rows, long bytesRead, long allocatedBytes, long peakHeapBytes) {
+        this.stage = stage;
+        this.wallNanos = wallNanos;
+        this.rows = rows;
+        this.bytesRead = bytesRead;
+        this.allocatedBytes = allocatedBytes;
+        this.peakHeapBytes = peakHeapBytes;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public double getWallMillis() {
+        return wallNanos / 1_000_000.0;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getRowsPerSecond() {
+        return wallNanos > 0 ? rows * 1_000_000_000.0 / wallNanos : 0;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.NotOfficeXmlFileException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads .xlsx sheets with the XSSF event (SAX) API. Rows are handed to the caller one at a time,
+ * so memory is bounded by a single row plus the shared strings table rather than the whole
+ * workbook. Cell values are rendered the same way as {@code Cell.toString()} so results line up
+ * with the previous DOM-based reader.
+ */
+public class StreamingExcelReader {
+
+    /**
+     * Reads the first sheet.
+     */
+    public static void read(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        read(filePath, rowHandler, null);
+    }
+
+    /**
+     * Reads every sheet, in workbook order, from a single open of the package. {@code sheetHandler}
+     * is given each sheet name and returns the consumer for that sheet's rows.
+     */
+    public static void readSheets(String filePath, Function<String, Consumer<List<String>>> sheetHandler) throws IOException {
+        read(filePath, null, sheetHandler);
+    }
+
+    private static void read(String filePath, Consumer<List<String>> firstSheetHandler, Function<String, Consumer<List<String>>> sheetHandler) throws IOException {
+        OPCPackage pkg;
+        try {
+            // Opening the package is also the validity check, so the file is only opened once
+            pkg = OPCPackage.open(new File(filePath), PackageAccess.READ);
+        } catch (InvalidFormatException | NotOfficeXmlFileException e) {
+            throw new IllegalArgumentException("File is not a valid Excel file: " + filePath, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    Consumer<List<String>> rowHandler = sheetHandler != null
+                            ? sheetHandler.apply(sheets.getSheetName())
+                            : firstSheetHandler;
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(strings, styles, rowHandler));
+                    parser.parse(new InputSource(sheet));
+                }
+                if (sheetHandler == null) {
+                    return;
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file: " + filePath, e);
+        } finally {
+            pkg.revert();
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final Consumer<List<String>> rowHandler;
+        private final SimpleDateFormat dateFormat;
+
+        private List<String> currentRow;
+        private final StringBuilder value = new StringBuilder();
+        private boolean inValue;
+        private boolean inInlineString;
+        private String cellType;
+        private String cellStyle;
+        private int cellColumn;
+        private int nextColumn;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, Consumer<List<String>> rowHandler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.rowHandler = rowHandler;
+            // Same pattern XSSFCell.toString() uses for date cells
+            this.dateFormat = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+            this.dateFormat.setTimeZone(LocaleUtil.getUserTimeZone());
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    currentRow = new ArrayList<>();
+                    nextColumn = 0;
+                    break;
+                case "c":
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    String ref = attributes.getValue("r");
+                    cellColumn = ref != null ? new CellReference(ref).getCol() : nextColumn;
+                    value.setLength(0);
+                    break;
+                case "v":
+                    inValue = true;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "t":
+                    inValue = inInlineString;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    // Fill gaps left by blank cells so values stay under their headers
+                    while (nextColumn < cellColumn) {
+                        currentRow.add("");
+                        nextColumn++;
+                    }
+                    currentRow.add(formatCell());
+                    nextColumn = cellColumn + 1;
+                    break;
+                case "row":
+                    rowHandler.accept(currentRow);
+                    currentRow = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                value.append(ch, start, length);
+            }
+        }
+
+        private String formatCell() {
+            String raw = value.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                return raw.isEmpty() ? "" : formatNumber(raw);
+            }
+            switch (cellType) {
+                case "s":
+                    return strings.getItemAt(Integer.parseInt(raw)).getString();
+                case "b":
+                    return "1".equals(raw) ? "TRUE" : "FALSE";
+                default:
+                    // inlineStr, str (cached formula result) and e (error text) are stored as-is
+                    return raw;
+            }
+        }
+
+        private String formatNumber(String raw) {
+            double number = Double.parseDouble(raw);
+            if (cellStyle != null && DateUtil.isValidExcelDate(number)) {
+                XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                    return dateFormat.format(DateUtil.getJavaDate(number, false, LocaleUtil.getUserTimeZone()));
+                }
+            }
+            return Double.toString(number);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.example;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.BitSet;
+
+/**
+ * Writes the Excel comparison report through an {@link SXSSFWorkbook}. Only a sliding window of
+ * rows is kept in memory; older rows are flushed to compressed temp files, so memory stays flat
+ * however many mismatches are written. When a sheet would run past the Excel row limit the writer
+ * continues on a new sheet. Each section, such as a workbook sheet, gets sheets of its own named
+ * after it. The workbook is written when the comparison finishes; closing the writer before that
+ * only deletes the temp files.
+ */
+public class StreamingExcelReportWriter implements ComparisonSink {
+
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+
+    private static final String SHEET_NAME = "Comparison Results";
+    // Trade ID, Env1, Env2, Difference, Tolerance and the blank separator row
+    private static final int ROWS_PER_TRADE = 6;
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private final String filePath;
+    private final int maxRowsPerSheet;
+    private final SXSSFWorkbook workbook;
+
+    private final CellStyle greenStyle;
+    private final CellStyle redStyle;
+    private final CellStyle boldStyle;
+    private final CellStyle yellowStyle;
+
+    private Sheet sheet;
+    private String[] headers;
+    private int sheetCount;
+    private int rowNum;
+    private String section = SHEET_NAME;
+    private int sectionSheetCount;
+    private boolean sectioned;
+    private boolean closed;
+
+    public StreamingExcelReportWriter(String filePath) {
+        this(filePath, DEFAULT_WINDOW_SIZE, SpreadsheetVersion.EXCEL2007.getMaxRows());
+    }
+
+    StreamingExcelReportWriter(String filePath, int windowSize, int maxRowsPerSheet) {
+        this.filePath = filePath;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+        this.workbook = new SXSSFWorkbook(windowSize);
+        this.workbook.setCompressTempFiles(true);
+
+        // Create reusable cell styles
+        greenStyle = workbook.createCellStyle();
+        greenStyle.setFillForegroundColor(IndexedColors.BRIGHT_GREEN.getIndex());
+        greenStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        redStyle = workbook.createCellStyle();
+        redStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
+        redStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        boldStyle = workbook.createCellStyle();
+        Font boldFont = workbook.createFont();
+        boldFont.setBold(true);
+        boldStyle.setFont(boldFont);
+
+        yellowStyle = workbook.createCellStyle();
+        yellowStyle.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+        yellowStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        nextSheet();
+    }
+
+    @Override
+    public void start(String[] headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public void accept(RecordDifference record) {
+        writeRecord(headers, record);
+    }
+
+    @Override
+    public void startSection(String name, String[] headers) {
+        this.headers = headers;
+        this.section = name;
+        if (!sectioned && sheetCount == 1 && rowNum == 0) {
+            // Nothing was written outside sections, so the first section takes over the first sheet
+            sectionSheetCount = 1;
+            workbook.setSheetName(0, sheetName());
+        } else {
+            sectionSheetCount = 0;
+            nextSheet();
+        }
+        sectioned = true;
+    }
+
+    @Override
+    public void finishSection(String name, ComparisonResult result) {
+        if (sectionSheetCount == 1 && rowNum == 0) {
+            sheet.createRow(rowNum++).createCell(0).setCellValue("No differences in " + result.getRecordCount() + " records");
+        }
+    }
+
+    /**
+     * Writes the workbook to {@link #filePath} and deletes the temp files backing the flushed rows.
+     */
+    @Override
+    public void finish(ComparisonResult result) throws IOException {
+        try {
+            Files.createDirectories(Paths.get(filePath).toAbsolutePath().getParent());
+            try (FileOutputStream outputStream = new FileOutputStream(filePath)) {
+                workbook.write(outputStream);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Writes one trade block containing only the columns that did not match.
+     */
+    public void writeRecord(String[] headers, RecordDifference record) {
+        if (rowNum + ROWS_PER_TRADE > maxRowsPerSheet) {
+            nextSheet();
+        }
+
+        Row tradeIdExcelRow = sheet.createRow(rowNum++);
+        Row dataInEnv1ExcelRow = sheet.createRow(rowNum++);
+        Row dataInEnv2ExcelRow = sheet.createRow(rowNum++);
+        Row differenceExcelRow = sheet.createRow(rowNum++);
+        Row toleranceExcelRow = sheet.createRow(rowNum++);
+
+        int cellNum = 0;
+        Cell tradeIdCell = tradeIdExcelRow.createCell(cellNum);
+        tradeIdCell.setCellValue(record.getKey());
+        tradeIdCell.setCellStyle(boldStyle);
+
+        dataInEnv1ExcelRow.createCell(cellNum).setCellValue("Data in Env1");
+        dataInEnv2ExcelRow.createCell(cellNum).setCellValue("Data in Env2");
+        differenceExcelRow.createCell(cellNum).setCellValue("Difference");
+        toleranceExcelRow.createCell(cellNum).setCellValue("Tolerance");
+
+        BitSet columns = record.getMismatchedColumns();
+        int k = 0;
+        for (int j = columns.nextSetBit(0); j >= 0; j = columns.nextSetBit(j + 1), k++) {
+            cellNum++;
+            Cell headerCell = tradeIdExcelRow.createCell(cellNum);
+            headerCell.setCellValue(headers[j]);
+            headerCell.setCellStyle(boldStyle);
+
+            dataInEnv1ExcelRow.createCell(cellNum).setCellValue(record.getEnv1Value(k));
+            dataInEnv2ExcelRow.createCell(cellNum).setCellValue(record.getEnv2Value(k));
+            Cell diffCell = differenceExcelRow.createCell(cellNum);
+            diffCell.setCellValue(record.getDifferenceText(k));
+            diffCell.setCellStyle(yellowStyle);
+
+            Cell toleranceCell = toleranceExcelRow.createCell(cellNum);
+            if (record.isNumeric(k)) {
+                if (record.isOutOfTolerance(k)) {
+                    toleranceCell.setCellValue("Yes");
+                    toleranceCell.setCellStyle(redStyle);
+                } else {
+                    toleranceCell.setCellValue("No");
+                    toleranceCell.setCellStyle(greenStyle);
+                }
+            }
+        }
+
+        sheet.createRow(rowNum++); // Empty row
+    }
+
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    /**
+     * Deletes the temp files backing the flushed rows. Unless the writer has finished, the report
+     * is not written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void nextSheet() {
+        sheetCount++;
+        sectionSheetCount++;
+        sheet = workbook.createSheet(sheetName());
+        rowNum = 0;
+    }
+
+    // The section name, numbered from its second sheet on, cut to Excel's limit and made unique
+    private String sheetName() {
+        String suffix = sectionSheetCount == 1 ? "" : " " + sectionSheetCount;
+        String base = WorkbookUtil.createSafeSheetName(section);
+        String name = base.substring(0, Math.min(base.length(), MAX_SHEET_NAME_LENGTH - suffix.length())) + suffix;
+        for (int duplicate = 2; workbook.getSheetIndex(name) >= 0; duplicate++) {
+            String tag = " (" + duplicate + ")";
+            name = base.substring(0, Math.min(base.length(), MAX_SHEET_NAME_LENGTH - suffix.length() - tag.length())) + suffix + tag;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,276 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Writes the HTML comparison report as it is produced instead of building it in memory. Trades are
+ * split across page files ({@code report_page_1.html}, {@code report_page_2.html}, ...) next to the
+ * index page, so no single table grows beyond what a browser can render. Each section, such as a
+ * workbook sheet, starts on a new page and is named in the index. All cell values are HTML-escaped.
+ * The index page is written when the comparison finishes.
+ */
+public class StreamingHtmlReportWriter implements ComparisonSink {
+
+    public static final int DEFAULT_TRADES_PER_PAGE = 5000;
+
+    private final Path indexPath;
+    private final int tradesPerPage;
+    private final List<PageInfo> pages = new ArrayList<>();
+    private final List<String> summaryLines = new ArrayList<>();
+
+    private Writer pageWriter;
+    private PageInfo currentPage;
+    private String[] headers;
+    private String section;
+
+    public StreamingHtmlReportWriter(String indexPath) {
+        this(indexPath, DEFAULT_TRADES_PER_PAGE);
+    }
+
+    public StreamingHtmlReportWriter(String indexPath, int tradesPerPage) {
+        this.indexPath = Paths.get(indexPath).toAbsolutePath();
+        this.tradesPerPage = tradesPerPage;
+    }
+
+    @Override
+    public void start(String[] headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public void accept(RecordDifference record) throws IOException {
+        writeRecord(headers, record);
+    }
+
+    @Override
+    public void startSection(String name, String[] headers) throws IOException {
+        finishPage();
+        currentPage = null;
+        this.section = name;
+        this.headers = headers;
+    }
+
+    @Override
+    public void finishSection(String name, ComparisonResult result) {
+        addSummaryLine(name + ": " + result.getRecordCount() + " records compared, "
+                + result.getMatchedRecords() + " fully matched, "
+                + result.getDifferenceCount() + " with differences");
+    }
+
+    /**
+     * Adds the record counts to the index page and closes the report.
+     */
+    @Override
+    public void finish(ComparisonResult result) throws IOException {
+        addSummaryLine("Records compared: " + result.getRecordCount());
+        addSummaryLine("Fully matched records: " + result.getMatchedRecords());
+        addSummaryLine("Records with differences: " + result.getDifferenceCount()
+                + " (only in Env1: " + result.getOnlyInEnv1Records()
+                + ", only in Env2: " + result.getOnlyInEnv2Records() + ")");
+        writeIndex();
+    }
+
+    /**
+     * Writes one trade block containing only the columns that did not match.
+     */
+    public void writeRecord(String[] headers, RecordDifference record) throws IOException {
+        if (currentPage == null || currentPage.tradeCount >= tradesPerPage) {
+            startPage(record.getKey());
+        }
+        int mismatches = record.getMismatchCount();
+        BitSet columns = record.getMismatchedColumns();
+
+        pageWriter.write("<tr>");
+        writeCell(record.getKey(), "font-weight:bold;");
+        for (int j = columns.nextSetBit(0); j >= 0; j = columns.nextSetBit(j + 1)) {
+            writeCell(headers[j], "font-weight:bold;");
+        }
+        pageWriter.write("</tr>\n<tr>");
+        writeCell("Data in Env1", "");
+        for (int k = 0; k < mismatches; k++) {
+            writeCell(record.getEnv1Value(k), "");
+        }
+        pageWriter.write("</tr>\n<tr>");
+        writeCell("Data in Env2", "");
+        for (int k = 0; k < mismatches; k++) {
+            writeCell(record.getEnv2Value(k), "");
+        }
+        pageWriter.write("</tr>\n<tr>");
+        writeCell("Difference", "");
+        for (int k = 0; k < mismatches; k++) {
+            writeCell(record.getDifferenceText(k), "background-color:yellow;");
+        }
+
+        // Tolerance row after the Difference row
+        pageWriter.write("</tr>\n<tr><td>Tolerance</td>");
+        for (int k = 0; k < mismatches; k++) {
+            if (record.isOutOfTolerance(k)) {
+                pageWriter.write("<td style='background-color:red;'>Yes</td>");
+            } else {
+                pageWriter.write("<td style='background-color:green;'>No</td>");
+            }
+        }
+        pageWriter.write("</tr>\n");
+
+        // Empty row after each set of rows
+        pageWriter.write("<tr><td colspan='" + (mismatches + 1) + "'></td></tr>\n");
+
+        currentPage.tradeCount++;
+        currentPage.lastTradeId = record.getKey();
+    }
+
+    /**
+     * Adds a line of summary text to the index page, e.g. record counts for the comparison.
+     */
+    public void addSummaryLine(String line) {
+        summaryLines.add(line);
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Closes the page being written. Unless the writer has finished, the index page is not written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (pageWriter != null) {
+            Writer writer = pageWriter;
+            pageWriter = null;
+            writer.close();
+        }
+    }
+
+    /**
+     * Finishes the last page and writes the index page linking to every page.
+     */
+    private void writeIndex() throws IOException {
+        finishPage();
+        Files.createDirectories(indexPath.getParent());
+        try (Writer index = newWriter(indexPath)) {
+            index.write("<html><head><meta charset='UTF-8'><title>Comparison Report</title></head><body>\n");
+            index.write("<h1>Comparison Report</h1>\n");
+            for (String line : summaryLines) {
+                index.write("<p>" + escapeHtml(line) + "</p>\n");
+            }
+            boolean sectioned = section != null;
+            index.write("<table border='1'><tr>" + (sectioned ? "<th>Sheet</th>" : "")
+                    + "<th>Page</th><th>Trades</th><th>First Trade ID</th><th>Last Trade ID</th></tr>\n");
+            for (int p = 0; p < pages.size(); p++) {
+                PageInfo page = pages.get(p);
+                index.write("<tr>");
+                if (sectioned) {
+                    index.write("<td>" + escapeHtml(page.section) + "</td>");
+                }
+                index.write("<td><a href='" + escapeHtml(page.fileName) + "'>Page " + (p + 1) + "</a></td>");
+                index.write("<td>" + page.tradeCount + "</td>");
+                index.write("<td>" + escapeHtml(page.firstTradeId) + "</td>");
+                index.write("<td>" + escapeHtml(page.lastTradeId) + "</td></tr>\n");
+            }
+            index.write("</table></body></html>\n");
+        }
+    }
+
+    private void startPage(String firstTradeId) throws IOException {
+        finishPage();
+        String baseName = indexPath.getFileName().toString().replaceFirst("\\.html?$", "");
+        currentPage = new PageInfo(baseName + "_page_" + (pages.size() + 1) + ".html", section, firstTradeId);
+        pages.add(currentPage);
+
+        Files.createDirectories(indexPath.getParent());
+        pageWriter = newWriter(indexPath.resolveSibling(currentPage.fileName));
+        pageWriter.write("<html><head><meta charset='UTF-8'><title>Comparison Report - Page " + pages.size() + "</title></head><body>\n");
+        pageWriter.write("<h1>Comparison Report - " + (section != null ? escapeHtml(section) + " - " : "") + "Page " + pages.size() + "</h1>\n");
+        pageWriter.write("<p><a href='" + escapeHtml(indexPath.getFileName().toString()) + "'>Index</a></p>\n");
+        pageWriter.write("<table border='1'>\n");
+    }
+
+    private void finishPage() throws IOException {
+        if (pageWriter != null) {
+            pageWriter.write("</table></body></html>\n");
+            pageWriter.close();
+            pageWriter = null;
+        }
+    }
+
+    private void writeCell(String cell, String cellStyle) throws IOException {
+        if (cell == null || cell.isEmpty()) {
+            pageWriter.write("<td></td>");
+            return;
+        }
+        pageWriter.write("<td style='" + cellStyle + "'>");
+        pageWriter.write(escapeHtml(cell));
+        pageWriter.write("</td>");
+    }
+
+    private static Writer newWriter(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path.toFile()), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static String escapeHtml(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                case '\'':
+                    replacement = "&#39;";
+                    break;
+                default:
+                    replacement = null;
+                    break;
+            }
+            if (replacement != null) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                escaped.append(replacement);
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    private static class PageInfo {
+        private final String fileName;
+        private final String section;
+        private final String firstTradeId;
+        private String lastTradeId;
+        private int tradeCount;
+
+        PageInfo(String fileName, String section, String firstTradeId) {
+            this.fileName = fileName;
+            this.section = section;
+            this.firstTradeId = firstTradeId;
+            this.lastTradeId = firstTradeId;
+        }
+    }
+}
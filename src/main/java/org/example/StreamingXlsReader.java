@@ -0,0 +1,275 @@
+package org.example;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.NotOLE2FileException;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.LocaleUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Reads legacy .xls (BIFF8) sheets with the HSSF event API. Records are streamed from the OLE2
+ * container and rows are handed to the caller one at a time, so memory is bounded by a single row
+ * plus the shared strings table, as with {@link StreamingExcelReader}. Cell values are rendered the
+ * same way as that reader so an .xls and an .xlsx with the same content compare equal.
+ */
+public class StreamingXlsReader {
+
+    /**
+     * Reads the first worksheet; the rest of the file is not parsed.
+     */
+    public static void read(String filePath, Consumer<List<String>> rowHandler) throws IOException {
+        read(filePath, rowHandler, null);
+    }
+
+    /**
+     * Reads every worksheet, in workbook order. {@code sheetHandler} is given each sheet name and
+     * returns the consumer for that sheet's rows.
+     */
+    public static void readSheets(String filePath, Function<String, Consumer<List<String>>> sheetHandler) throws IOException {
+        read(filePath, null, sheetHandler);
+    }
+
+    private static void read(String filePath, Consumer<List<String>> firstSheetHandler, Function<String, Consumer<List<String>>> sheetHandler) throws IOException {
+        POIFSFileSystem fs;
+        try {
+            fs = new POIFSFileSystem(new File(filePath), true);
+        } catch (NotOLE2FileException e) {
+            throw new IllegalArgumentException("File is not a valid Excel file: " + filePath, e);
+        }
+        try {
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new SheetListener(firstSheetHandler, sheetHandler));
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+        } catch (HSSFUserException e) {
+            throw new IOException("Failed to read Excel file: " + filePath, e);
+        } finally {
+            fs.close();
+        }
+    }
+
+    private static class SheetListener extends AbortableHSSFListener {
+        private final Consumer<List<String>> firstSheetHandler;
+        private final Function<String, Consumer<List<String>>> sheetHandler;
+        // Only used for its number format lookups, records are not passed on
+        private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(record -> { });
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private final SimpleDateFormat dateFormat;
+
+        private BoundSheetRecord[] sheetsByPosition;
+        private SSTRecord strings;
+        private boolean date1904;
+        // Nesting of BOF/EOF substreams; charts embedded in a sheet open their own
+        private int depth;
+        private int sheetIndex = -1;
+        private Consumer<List<String>> rowHandler;
+
+        private List<String> currentRow;
+        private int currentRowIndex = -1;
+        private int nextColumn;
+        private int pendingFormulaColumn = -1;
+
+        SheetListener(Consumer<List<String>> firstSheetHandler, Function<String, Consumer<List<String>>> sheetHandler) {
+            this.firstSheetHandler = firstSheetHandler;
+            this.sheetHandler = sheetHandler;
+            // Same pattern StreamingExcelReader uses for date cells
+            this.dateFormat = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+            this.dateFormat.setTimeZone(LocaleUtil.getUserTimeZone());
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            formats.processRecordInternally(record);
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid:
+                    boundSheets.add((BoundSheetRecord) record);
+                    break;
+                case DateWindow1904Record.sid:
+                    date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                    break;
+                case SSTRecord.sid:
+                    strings = (SSTRecord) record;
+                    break;
+                case BOFRecord.sid:
+                    startSubstream((BOFRecord) record);
+                    break;
+                case EOFRecord.sid:
+                    depth--;
+                    if (depth == 0 && rowHandler != null) {
+                        finishRow();
+                        rowHandler = null;
+                        // Reading only the first sheet stops here
+                        if (sheetHandler == null) {
+                            return 1;
+                        }
+                    }
+                    break;
+                default:
+                    if (rowHandler != null && depth == 1) {
+                        processCell(record);
+                    }
+                    break;
+            }
+            return 0;
+        }
+
+        private void startSubstream(BOFRecord bof) {
+            if (depth++ > 0 || bof.getType() == BOFRecord.TYPE_WORKBOOK) {
+                return;
+            }
+            // Every sheet, chart sheets included, has a bound sheet record in the globals
+            if (sheetsByPosition == null) {
+                sheetsByPosition = BoundSheetRecord.orderByBofPosition(boundSheets);
+            }
+            sheetIndex++;
+            if (bof.getType() != BOFRecord.TYPE_WORKSHEET) {
+                return;
+            }
+            rowHandler = sheetHandler != null
+                    ? sheetHandler.apply(sheetsByPosition[sheetIndex].getSheetname())
+                    : firstSheetHandler;
+            currentRow = null;
+            currentRowIndex = -1;
+        }
+
+        private void processCell(Record record) {
+            if (record instanceof StringRecord) {
+                // Cached text result of the formula just before it
+                if (pendingFormulaColumn >= 0) {
+                    currentRow.add(((StringRecord) record).getString());
+                    pendingFormulaColumn = -1;
+                }
+                return;
+            }
+            if (record instanceof MulBlankRecord) {
+                MulBlankRecord blanks = (MulBlankRecord) record;
+                for (int i = 0; i < blanks.getNumColumns(); i++) {
+                    addCell(blanks.getRow(), blanks.getFirstColumn() + i, "");
+                }
+                return;
+            }
+            if (!(record instanceof CellValueRecordInterface)) {
+                return;
+            }
+            CellValueRecordInterface cell = (CellValueRecordInterface) record;
+            if (record instanceof FormulaRecord
+                    && ((FormulaRecord) record).getCachedResultTypeEnum() == CellType.STRING) {
+                addCell(cell.getRow(), cell.getColumn(), null);
+                pendingFormulaColumn = cell.getColumn();
+                return;
+            }
+            String value = formatCell(record);
+            if (value != null) {
+                addCell(cell.getRow(), cell.getColumn(), value);
+            }
+        }
+
+        private String formatCell(Record record) {
+            if (record instanceof NumberRecord) {
+                return formatNumber((NumberRecord) record, ((NumberRecord) record).getValue());
+            }
+            if (record instanceof LabelSSTRecord) {
+                return strings.getString(((LabelSSTRecord) record).getSSTIndex()).getString();
+            }
+            if (record instanceof LabelRecord) {
+                return ((LabelRecord) record).getValue();
+            }
+            if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                return boolErr.isBoolean()
+                        ? (boolErr.getBooleanValue() ? "TRUE" : "FALSE")
+                        : FormulaError.forInt(boolErr.getErrorValue()).getString();
+            }
+            if (record instanceof BlankRecord) {
+                return "";
+            }
+            if (record instanceof FormulaRecord) {
+                FormulaRecord formula = (FormulaRecord) record;
+                switch (formula.getCachedResultTypeEnum()) {
+                    case BOOLEAN:
+                        return formula.getCachedBooleanValue() ? "TRUE" : "FALSE";
+                    case ERROR:
+                        return FormulaError.forInt(formula.getCachedErrorValue()).getString();
+                    default:
+                        return formatNumber(formula, formula.getValue());
+                }
+            }
+            return null;
+        }
+
+        private String formatNumber(CellValueRecordInterface cell, double number) {
+            if (DateUtil.isValidExcelDate(number)) {
+                int formatIndex = formats.getFormatIndex(cell);
+                String format = formats.getFormatString(cell);
+                if (format != null && DateUtil.isADateFormat(formatIndex, format)) {
+                    return dateFormat.format(DateUtil.getJavaDate(number, date1904, LocaleUtil.getUserTimeZone()));
+                }
+            }
+            return Double.toString(number);
+        }
+
+        // A formula whose text never arrived keeps its cell, empty
+        private void finishPendingFormula() {
+            if (pendingFormulaColumn >= 0) {
+                currentRow.add("");
+                pendingFormulaColumn = -1;
+            }
+        }
+
+        // A null value reserves the cell for a formula whose text follows in a StringRecord
+        private void addCell(int row, int column, String value) {
+            finishPendingFormula();
+            if (row != currentRowIndex) {
+                finishRow();
+                currentRow = new ArrayList<>();
+                currentRowIndex = row;
+                nextColumn = 0;
+            }
+            // Fill gaps left by blank cells so values stay under their headers
+            while (nextColumn < column) {
+                currentRow.add("");
+                nextColumn++;
+            }
+            if (value != null) {
+                currentRow.add(value);
+            }
+            nextColumn = column + 1;
+        }
+
+        private void finishRow() {
+            finishPendingFormula();
+            if (currentRow != null) {
+                rowHandler.accept(currentRow);
+                currentRow = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares every sheet of two .xlsx or .xls workbooks. Sheets are matched by name; each workbook is
+ * opened once and read in full, the two workbooks are read concurrently, and the matched sheets
+ * are then compared concurrently, so a workbook takes about as long as its largest sheet.
+ *
+ * <p>A sheet found in only one workbook is compared against an empty sheet with the same
+ * headers, so all its records show up as only in Env1 or only in Env2.
+ */
+public class WorkbookComparison {
+
+    private final ComparisonOptions options;
+
+    public WorkbookComparison(ComparisonOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Returns the result of each sheet by name, Env1 sheets first in workbook order, followed by
+     * the sheets only in Env2. Sheets without any rows in either workbook are left out.
+     */
+    public Map<String, ComparisonResult> compare(String file1Path, String file2Path) throws IOException {
+        int threads = options.getParallelThreads() > 0 ? options.getParallelThreads() : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(2, threads), BatchComparisonRunner.namedThreads("sheet-comparison"));
+        try {
+            Future<Map<String, List<List<String>>>> env2 = pool.submit(() -> readSheets(file2Path, options));
+            Map<String, List<List<String>>> sheets1 = readSheets(file1Path, options);
+            Map<String, List<List<String>>> sheets2 = get(env2);
+
+            Set<String> names = new LinkedHashSet<>(sheets1.keySet());
+            names.addAll(sheets2.keySet());
+            Map<String, Future<ComparisonResult>> comparisons = new LinkedHashMap<>();
+            for (String name : names) {
+                List<List<String>> rows1 = sheets1.getOrDefault(name, new ArrayList<>());
+                List<List<String>> rows2 = sheets2.getOrDefault(name, new ArrayList<>());
+                if (rows1.isEmpty() && rows2.isEmpty()) {
+                    continue;
+                }
+                List<List<String>> file1Data = rows1.isEmpty() ? headerOnly(rows2) : rows1;
+                List<List<String>> file2Data = rows2.isEmpty() ? headerOnly(rows1) : rows2;
+                comparisons.put(name, pool.submit(() -> DynamicReportGenerator.compare(file1Data, file2Data, options)));
+            }
+
+            Map<String, ComparisonResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<ComparisonResult>> comparison : comparisons.entrySet()) {
+                results.put(comparison.getKey(), get(comparison.getValue()));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Map<String, List<List<String>>> readSheets(String filePath, ComparisonOptions options) throws IOException {
+        if (options.isDictionaryEncoding()) {
+            // The workbooks are read concurrently, so each table keeps its own dictionaries
+            Map<String, DictionaryTable.Builder> tables = new LinkedHashMap<>();
+            FileComparisonUtils.readSheets(filePath, name -> {
+                DictionaryTable.Builder table = new DictionaryTable.Builder();
+                tables.put(name, table);
+                return table;
+            });
+            Map<String, List<List<String>>> sheets = new LinkedHashMap<>();
+            for (Map.Entry<String, DictionaryTable.Builder> table : tables.entrySet()) {
+                sheets.put(table.getKey(), table.getValue().build());
+            }
+            return sheets;
+        }
+        Map<String, List<List<String>>> sheets = new LinkedHashMap<>();
+        FileComparisonUtils.readSheets(filePath, name -> {
+            List<List<String>> rows = new ArrayList<>();
+            sheets.put(name, rows);
+            return rows::add;
+        });
+        return sheets;
+    }
+
+    private static List<List<String>> headerOnly(List<List<String>> rows) {
+        List<List<String>> header = new ArrayList<>();
+        header.add(rows.get(0));
+        return header;
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while comparing workbooks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
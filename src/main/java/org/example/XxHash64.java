@@ -0,0 +1,199 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming xxHash64, seed 0 unless given, used to fingerprint whole files and individual rows so identical
+ * content can be recognised without comparing it cell by cell. Instances are not thread-safe.
+ */
+public class XxHash64 {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private static final int FILE_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final long seed;
+    private final byte[] pending = new byte[32];
+    private final byte[] scratch = new byte[256];
+    private int pendingLength;
+    private long totalLength;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public XxHash64 reset() {
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+        pendingLength = 0;
+        totalLength = 0;
+        return this;
+    }
+
+    public XxHash64 update(byte[] bytes, int offset, int length) {
+        totalLength += length;
+        if (pendingLength > 0) {
+            int fill = Math.min(32 - pendingLength, length);
+            System.arraycopy(bytes, offset, pending, pendingLength, fill);
+            pendingLength += fill;
+            offset += fill;
+            length -= fill;
+            if (pendingLength < 32) {
+                return this;
+            }
+            processStripe(pending, 0);
+            pendingLength = 0;
+        }
+        while (length >= 32) {
+            processStripe(bytes, offset);
+            offset += 32;
+            length -= 32;
+        }
+        System.arraycopy(bytes, offset, pending, 0, length);
+        pendingLength = length;
+        return this;
+    }
+
+    public XxHash64 update(ByteBuffer buffer, int offset, int length) {
+        while (length > 0) {
+            int chunk = Math.min(length, scratch.length);
+            for (int i = 0; i < chunk; i++) {
+                scratch[i] = buffer.get(offset + i);
+            }
+            update(scratch, 0, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the UTF-16 code units of {@code value}.
+     */
+    public XxHash64 update(String value) {
+        int length = value.length();
+        for (int from = 0; from < length; ) {
+            int chunk = Math.min(length - from, scratch.length / 2);
+            for (int i = 0; i < chunk; i++) {
+                char c = value.charAt(from + i);
+                scratch[2 * i] = (byte) c;
+                scratch[2 * i + 1] = (byte) (c >>> 8);
+            }
+            update(scratch, 0, chunk * 2);
+            from += chunk;
+        }
+        return this;
+    }
+
+    public XxHash64 update(int value) {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        scratch[2] = (byte) (value >>> 16);
+        scratch[3] = (byte) (value >>> 24);
+        return update(scratch, 0, 4);
+    }
+
+    public long digest() {
+        long hash;
+        if (totalLength >= 32) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += totalLength;
+
+        int i = 0;
+        for (; i + 8 <= pendingLength; i += 8) {
+            hash ^= round(0, readLong(pending, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (i + 4 <= pendingLength) {
+            hash ^= (readInt(pending, i) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            i += 4;
+        }
+        for (; i < pendingLength; i++) {
+            hash ^= (pending[i] & 0xFFL) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    /**
+     * Hashes the raw bytes of a file, reading it through memory-mapped windows.
+     */
+    public static long hashFile(String filePath) throws IOException {
+        XxHash64 hasher = new XxHash64();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += FILE_WINDOW_SIZE) {
+                int length = (int) Math.min(FILE_WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                byte[] chunk = new byte[Math.min(length, 1024 * 1024)];
+                for (int offset = 0; offset < length; offset += chunk.length) {
+                    int count = Math.min(chunk.length, length - offset);
+                    buffer.get(chunk, 0, count);
+                    hasher.update(chunk, 0, count);
+                }
+            }
+        }
+        return hasher.digest();
+    }
+
+    private void processStripe(byte[] bytes, int offset) {
+        v1 = round(v1, readLong(bytes, offset));
+        v2 = round(v2, readLong(bytes, offset + 8));
+        v3 = round(v3, readLong(bytes, offset + 16));
+        v4 = round(v4, readLong(bytes, offset + 24));
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long mergeRound(long hash, long value) {
+        hash ^= round(0, value);
+        return hash * PRIME1 + PRIME4;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return (readInt(bytes, offset) & 0xFFFFFFFFL) | ((long) readInt(bytes, offset + 4) << 32);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
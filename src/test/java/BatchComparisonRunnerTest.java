@@ -0,0 +1,83 @@
+import org.example.BatchComparisonRunner;
+import org.example.ComparisonJob;
+import org.example.ComparisonOptions;
+import org.example.ComparisonRun;
+import org.example.ReportFormat;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+
+public class BatchComparisonRunnerTest {
+
+    @Test
+    public void testFailuresAndTimeoutsStayWithTheirJob() throws Exception {
+        Path dir = Files.createTempDirectory("batch-runner");
+        Path env1 = Files.createDirectories(dir.resolve("env1"));
+        Path env2 = Files.createDirectories(dir.resolve("env2"));
+        for (Path folder : Arrays.asList(env1, env2)) {
+            Files.write(folder.resolve("good.csv"), "TradeID,Price\nT1,100\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(folder.resolve("blocked.csv"), new byte[0]);
+        }
+        // Opening a FIFO without a writer blocks in the file system and ignores interrupts
+        Path fifo = env1.resolve("blocked.csv");
+        Files.delete(fifo);
+        if (!mkfifo(fifo)) {
+            throw new SkipException("mkfifo is not available");
+        }
+
+        try {
+            ComparisonOptions options = ComparisonOptions.defaults();
+            options.setReportFormats(EnumSet.of(ReportFormat.DELTA));
+            BatchComparisonRunner runner = new BatchComparisonRunner(3, 3, options);
+            long start = System.nanoTime();
+            ComparisonRun run = runner.run(Arrays.asList(
+                    new ComparisonJob(env1.toString(), env2.toString(), "blocked.csv"),
+                    new ComparisonJob(env1.toString(), env2.toString(), "missing.csv"),
+                    new ComparisonJob(env1.toString(), env2.toString(), "good.csv")), dir.resolve("out").toString());
+            long seconds = (System.nanoTime() - start) / 1_000_000_000L;
+
+            // One timeout plus one grace period, not however long the blocked job takes
+            Assert.assertTrue(seconds < 30, "Batch took " + seconds + " seconds");
+            Assert.assertEquals(run.getSummaries().size(), 1);
+            Assert.assertEquals(run.getSummaries().get(0).getFileName(), "good.csv");
+            Map<String, String> failures = run.getFailures();
+            Assert.assertEquals(failures.size(), 2, String.valueOf(failures));
+            String blocked = failures.entrySet().stream().filter(e -> e.getKey().contains("blocked.csv"))
+                    .map(Map.Entry::getValue).findFirst().orElse(null);
+            Assert.assertEquals(blocked, "Timed out after 3 seconds, abandoned while still running");
+            Assert.assertTrue(failures.keySet().stream().anyMatch(key -> key.contains("missing.csv")), String.valueOf(failures));
+            Assert.assertTrue(run.isCompleted());
+        } finally {
+            // Lets the abandoned job read an empty file and end
+            Thread release = new Thread(() -> {
+                try {
+                    new FileOutputStream(fifo.toFile()).close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            release.setDaemon(true);
+            release.start();
+        }
+    }
+
+    private static boolean mkfifo(Path path) {
+        try {
+            return new ProcessBuilder("mkfifo", path.toString()).inheritIO().start().waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+
+import org.example.ColumnRule;
+import org.example.ColumnRules;
+import org.example.ComparisonOptions;
+import org.example.ComparisonResult;
+import org.example.FileComparisonUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ColumnRulesTest {
+
+    @Test
+    public void testRuleTypes() {
+        ColumnRule numeric = ColumnRules.parse("numeric abs=0.01 rel=0.001");
+        Assert.assertTrue(numeric.matches("673", "673.0"));
+        Assert.assertTrue(numeric.matches("10000", "10005"));
+        Assert.assertFalse(numeric.matches("1.00", "1.02"));
+        Assert.assertFalse(numeric.matches("abc", "abd"));
+
+        Assert.assertTrue(ColumnRules.parse("ignore").matches("a", "b"));
+        Assert.assertTrue(ColumnRules.parse("text trim collapse ignoreCase").matches(" Big  Bank ", "big bank"));
+        Assert.assertFalse(ColumnRules.parse("text trim").matches("Big Bank", "big bank"));
+        Assert.assertTrue(ColumnRules.parse("date format=dd/MM/yyyy").matches("05-Mar-2024", "05/03/2024"));
+        Assert.assertTrue(ColumnRules.parse("date").matches("2024-03-05", "05-MAR-2024"));
+        Assert.assertFalse(ColumnRules.parse("date").matches("2024-03-05", "06-Mar-2024"));
+        Assert.assertFalse(ColumnRules.parse("exact").matches("1", "1.0"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRuleIsRejected() {
+        ColumnRules.parse("numeric tolerance=5");
+    }
+
+    @Test
+    public void testRulesApplyPerColumn() {
+        List<List<String>> env1 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Price", "Comment", "Book"));
+        env1.add(Arrays.asList("1", "100.00", "first", "ABC"));
+        List<List<String>> env2 = new ArrayList<>();
+        env2.add(Arrays.asList("TradeID", "Price", "Comment", "Book"));
+        env2.add(Arrays.asList("1", "100.30", "second", "abc"));
+
+        ComparisonResult defaults = FileComparisonUtils.compareFiles(env1, env2);
+        Assert.assertEquals(defaults.getUnmatchedCells(), 2);
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setColumnRule("Price", "numeric abs=0.01");
+        options.setColumnRule("Comment", "ignore");
+        options.setColumnRule("3", "text ignoreCase");
+        ComparisonResult ruled = FileComparisonUtils.compareFiles(env1, env2, options);
+        Assert.assertEquals(ruled.getUnmatchedCells(), 1);
+        Assert.assertEquals(ruled.getDifferences().get(0).getColumn(0), 1);
+    }
+}
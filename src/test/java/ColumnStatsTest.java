@@ -0,0 +1,48 @@
+
+import org.example.ColumnHeatmap;
+import org.example.ColumnStats;
+import org.example.ComparisonResult;
+import org.example.FileComparisonUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ColumnStatsTest {
+
+    @Test
+    public void testColumnStatistics() {
+        List<List<String>> env1 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Price", "Book"));
+        env1.add(Arrays.asList("1", "100", "ABC"));
+        env1.add(Arrays.asList("2", "200", "ABC"));
+        env1.add(Arrays.asList("3", "300", "ABC"));
+        env1.add(Arrays.asList("4", "400", "ABC"));
+        List<List<String>> env2 = new ArrayList<>();
+        env2.add(Arrays.asList("TradeID", "Price", "Book"));
+        env2.add(Arrays.asList("1", "102", "ABC"));
+        env2.add(Arrays.asList("2", "250", "XYZ"));
+        env2.add(Arrays.asList("3", "300.1", "ABC"));
+
+        ComparisonResult result = FileComparisonUtils.compareFiles(env1, env2);
+        ColumnStats stats = result.getColumnStats();
+
+        // The record missing from Env2 is not counted as drift
+        Assert.assertEquals(stats.getMismatches(0), 0);
+        Assert.assertEquals(stats.getMismatches(1), 2);
+        Assert.assertEquals(stats.getTextMismatches(1), 0);
+        Assert.assertEquals(stats.getMaxAbsDelta(1), 50.0, 1e-9);
+        Assert.assertEquals(stats.getMeanAbsDelta(1), 26.0, 1e-9);
+        Assert.assertEquals(stats.getHistogramCount(1, 3), 1);
+        Assert.assertEquals(stats.getHistogramCount(1, 4), 1);
+        Assert.assertEquals(ColumnStats.bucketLabel(3), "1-10");
+        Assert.assertEquals(stats.getTextMismatches(2), 1);
+
+        String svg = ColumnHeatmap.toSvg(result.getHeaders(), stats);
+        Assert.assertTrue(svg.startsWith("<svg"));
+        Assert.assertTrue(svg.contains(">Price<"));
+        Assert.assertFalse(svg.contains(">TradeID<"));
+    }
+}
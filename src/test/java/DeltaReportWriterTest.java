@@ -0,0 +1,92 @@
+import org.example.ComparisonOptions;
+import org.example.ComparisonResult;
+import org.example.DeltaReportWriter;
+import org.example.FileComparisonUtils;
+import org.example.RecordDifference;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+public class DeltaReportWriterTest {
+
+    @Test
+    public void testOneLinePerMismatchingCell() throws IOException {
+        List<List<String>> env1 = new ArrayList<>();
+        List<List<String>> env2 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Price", "Book"));
+        env2.add(Arrays.asList("TradeID", "Price", "Book"));
+        env1.add(Arrays.asList("T1", "100", "A"));
+        env2.add(Arrays.asList("T1", "101", "B,\"x\""));
+        env1.add(Arrays.asList("T2", "5", "A"));
+        env2.add(Arrays.asList("T2", "5.2", "A"));
+        env2.add(Arrays.asList("T3", "7", "C"));
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setColumnRule("Book", "text ignoreCase");
+        ComparisonResult result = FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0}, options);
+        Path dir = Files.createTempDirectory("delta-report");
+
+        Path jsonl = dir.resolve(DeltaReportWriter.fileName(DeltaReportWriter.Format.JSONL, true));
+        write(new DeltaReportWriter(jsonl.toString(), DeltaReportWriter.Format.JSONL, true, options), result);
+        Assert.assertEquals(jsonl.getFileName().toString(), "delta.jsonl.gz");
+        Assert.assertEquals(gunzip(jsonl), Arrays.asList(
+                "{\"key\":\"T1\",\"column\":\"Price\",\"env1\":\"100\",\"env2\":\"101\",\"delta\":-1.0,\"rule\":\"numeric abs=0.5\",\"verdict\":\"OUT_OF_TOLERANCE\"}",
+                "{\"key\":\"T1\",\"column\":\"Book\",\"env1\":\"A\",\"env2\":\"B,\\\"x\\\"\",\"rule\":\"text ignoreCase\",\"verdict\":\"TEXT_MISMATCH\"}",
+                "{\"key\":\"T3\",\"verdict\":\"ONLY_IN_ENV2\"}"));
+
+        Path csv = dir.resolve(DeltaReportWriter.fileName(DeltaReportWriter.Format.CSV, false));
+        write(new DeltaReportWriter(csv.toString(), DeltaReportWriter.Format.CSV, false, options), result);
+        Assert.assertEquals(Files.readAllLines(csv, StandardCharsets.UTF_8), Arrays.asList(
+                "sheet,key,column,env1,env2,delta,rule,verdict",
+                ",T1,Price,100,101,-1.0,numeric abs=0.5,OUT_OF_TOLERANCE",
+                ",T1,Book,A,\"B,\"\"x\"\"\",,text ignoreCase,TEXT_MISMATCH",
+                ",T3,,,,,,ONLY_IN_ENV2"));
+    }
+
+    @Test
+    public void testNumbersUnderNonNumericRulesAreTextMismatches() throws IOException {
+        List<List<String>> env1 = new ArrayList<>();
+        List<List<String>> env2 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Code", "Account", "Price"));
+        env2.add(Arrays.asList("TradeID", "Code", "Account", "Price"));
+        env1.add(Arrays.asList("T1", "007", "0042", "100"));
+        env2.add(Arrays.asList("T1", "7", "42", "102"));
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setColumnRule("Code", "exact");
+        options.setColumnRule("Account", "text ignoreCase");
+        ComparisonResult result = FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0}, options);
+        Path jsonl = Files.createTempDirectory("delta-report").resolve(DeltaReportWriter.fileName(DeltaReportWriter.Format.JSONL, false));
+        write(new DeltaReportWriter(jsonl.toString(), DeltaReportWriter.Format.JSONL, false, options), result);
+        Assert.assertEquals(Files.readAllLines(jsonl, StandardCharsets.UTF_8), Arrays.asList(
+                "{\"key\":\"T1\",\"column\":\"Code\",\"env1\":\"007\",\"env2\":\"7\",\"delta\":0.0,\"rule\":\"exact\",\"verdict\":\"TEXT_MISMATCH\"}",
+                "{\"key\":\"T1\",\"column\":\"Account\",\"env1\":\"0042\",\"env2\":\"42\",\"delta\":0.0,\"rule\":\"text ignoreCase\",\"verdict\":\"TEXT_MISMATCH\"}",
+                "{\"key\":\"T1\",\"column\":\"Price\",\"env1\":\"100\",\"env2\":\"102\",\"delta\":-2.0,\"rule\":\"numeric abs=0.5\",\"verdict\":\"OUT_OF_TOLERANCE\"}"));
+    }
+
+    private static void write(DeltaReportWriter writer, ComparisonResult result) throws IOException {
+        writer.start(result.getHeaders());
+        for (RecordDifference record : result.getDifferences()) {
+            writer.accept(record);
+        }
+        writer.finish(result);
+    }
+
+    private static List<String> gunzip(Path path) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
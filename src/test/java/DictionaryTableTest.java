@@ -0,0 +1,65 @@
+import org.example.ComparisonResult;
+import org.example.DictionaryTable;
+import org.example.FileComparisonUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DictionaryTableTest {
+
+    @Test
+    public void testRowsReadBackUnchanged() {
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(Arrays.asList("TradeID", "Qty", "Price", "Book", "Note"));
+        for (int i = 0; i < 3000; i++) {
+            // Trade ids are unique, quantities and prices stay numeric until a blank or "100.50"
+            // shows up, books repeat and some rows are short
+            String qty = i == 2000 ? "" : String.valueOf(i % 7 - 3);
+            String price = i == 2500 ? "100.50" : Double.toString(i * 0.25);
+            if (i % 100 == 0) {
+                rows.add(Arrays.asList("T" + i, qty, price));
+            } else {
+                rows.add(Arrays.asList("T" + i, qty, price, "B" + (i % 5), i % 2 == 0 ? "-0" : "007"));
+            }
+        }
+
+        DictionaryTable.Builder builder = new DictionaryTable.Builder();
+        rows.forEach(builder);
+        DictionaryTable table = builder.build();
+
+        Assert.assertEquals(table.size(), rows.size());
+        Assert.assertEquals(table, rows);
+    }
+
+    @Test
+    public void testComparisonMatchesPlainRows() {
+        List<List<String>> env1 = new ArrayList<>();
+        List<List<String>> env2 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Price", "Book"));
+        env2.add(Arrays.asList("TradeID", "Price", "Book"));
+        for (int i = 0; i < 5000; i++) {
+            env1.add(Arrays.asList(String.valueOf(i), Double.toString(i % 97), "B" + (i % 5)));
+            if (i % 333 != 0) {
+                env2.add(Arrays.asList(String.valueOf(i), Double.toString(i % 97 + (i % 41 == 0 ? 2 : 0)), "B" + (i % (i % 50 == 0 ? 6 : 5))));
+            }
+        }
+
+        DictionaryTable.Builder builder1 = new DictionaryTable.Builder();
+        DictionaryTable.Builder builder2 = new DictionaryTable.Builder(builder1);
+        env1.forEach(builder1);
+        env2.forEach(builder2);
+
+        ComparisonResult expected = FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0});
+        ComparisonResult actual = FileComparisonUtils.compareFilesByKey(builder1.build(), builder2.build(), new int[]{0});
+        Assert.assertEquals(actual.getMatchedRecords(), expected.getMatchedRecords());
+        Assert.assertEquals(actual.getOnlyInEnv1Records(), expected.getOnlyInEnv1Records());
+        Assert.assertEquals(actual.getDifferenceCount(), expected.getDifferenceCount());
+        for (int i = 0; i < expected.getDifferenceCount(); i++) {
+            Assert.assertEquals(actual.getDifferences().get(i).getKey(), expected.getDifferences().get(i).getKey());
+            Assert.assertEquals(actual.getDifferences().get(i).getMismatchedColumns(), expected.getDifferences().get(i).getMismatchedColumns());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+
+import org.example.ComparisonOptions;
+import org.example.ComparisonResult;
+import org.example.ExternalSortComparison;
+import org.example.FileComparisonUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ExternalSortComparisonTest {
+
+    @Test
+    public void testSpilledComparisonMatchesInMemoryComparison() throws Exception {
+        Path dir = Files.createTempDirectory("external-sort-test");
+        Path file1 = dir.resolve("env1.csv");
+        Path file2 = dir.resolve("env2.csv");
+        try (PrintWriter env1 = new PrintWriter(file1.toFile()); PrintWriter env2 = new PrintWriter(file2.toFile())) {
+            env1.println("TradeID,Price,Book");
+            env2.println("TradeID,Price,Book");
+            for (int i = 0; i < 5000; i++) {
+                // Env2 holds the same trades in reverse order, with some prices moved and some trades missing
+                int trade = 4999 - i;
+                env1.println(i + "," + (i % 100) + ",B" + (i % 7));
+                if (trade % 250 != 0) {
+                    env2.println(trade + "," + (trade % 100 + (trade % 50 == 1 ? 3 : 0)) + ",B" + (trade % 7));
+                }
+            }
+            env2.println("99999,1,B1");
+        }
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setKeyColumns(Collections.singletonList("TradeID"));
+        options.setExternalMemoryBudget(2048); // forces well over one merge pass of run files
+        options.setExternalTempDir(dir.toString());
+        ComparisonResult spilled = new ExternalSortComparison(options).run(file1.toString(), file2.toString(), Collections.emptyList());
+
+        List<List<String>> rows1 = FileComparisonUtils.readCSV(file1.toString());
+        List<List<String>> rows2 = FileComparisonUtils.readCSV(file2.toString());
+        ComparisonResult inMemory = FileComparisonUtils.compareFilesByKey(rows1, rows2, new int[]{0});
+
+        Assert.assertEquals(spilled.getMatchedRecords(), inMemory.getMatchedRecords());
+        Assert.assertEquals(spilled.getDifferenceCount(), inMemory.getDifferenceCount());
+        Assert.assertEquals(spilled.getOnlyInEnv1Records(), 20);
+        Assert.assertEquals(spilled.getOnlyInEnv2Records(), 1);
+        Assert.assertEquals(spilled.getUnmatchedCells(), inMemory.getUnmatchedCells());
+        // Only the two input files remain; the run files were cleaned up
+        Assert.assertEquals(Files.list(dir).count(), 2);
+        Assert.assertEquals(Arrays.asList(spilled.getHeaders()), rows1.get(0));
+    }
+}
@@ -0,0 +1,137 @@
+import org.example.ComparisonAbortedException;
+import org.example.ComparisonOptions;
+import org.example.ComparisonRun;
+import org.example.DynamicReportGenerator;
+import org.example.FileComparisonSummary;
+import org.example.FileComparisonUtils;
+import org.example.ReportFormat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+public class FailFastTest {
+
+    @Test
+    public void testStopsAfterMaxMismatches() {
+        List<List<String>> env1 = rows(0);
+        List<List<String>> env2 = rows(1);
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setFailFastMaxMismatches(50);
+        options.setFailFastExamples(3);
+
+        try {
+            FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0}, options);
+            Assert.fail("Comparison should have been aborted");
+        } catch (ComparisonAbortedException e) {
+            Assert.assertEquals(e.getResult().getDifferenceCount(), 50);
+            // Every tenth record differs, so the 50th difference is record 490
+            Assert.assertEquals(e.getResult().getRecordCount(), 491);
+            Assert.assertEquals(e.getExamples(), Arrays.asList("T0: Price 0 | 1", "T10: Price 10 | 11", "T20: Price 20 | 21"));
+        }
+    }
+
+    @Test
+    public void testStopsWhenMismatchRateIsExceeded() {
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setFailFastMaxMismatchRate(0.05);
+        options.setFailFastMinRecords(200);
+
+        // One record in ten differs, checked from the 200th record on
+        try {
+            FileComparisonUtils.compareFiles(rows(0), rows(1), options);
+            Assert.fail("Comparison should have been aborted");
+        } catch (ComparisonAbortedException e) {
+            Assert.assertEquals(e.getResult().getRecordCount(), 201);
+            Assert.assertTrue(e.getMessage().startsWith("10.4% of 201 records"), e.getMessage());
+        }
+
+        // Within the rate the full comparison runs
+        options.setFailFastMaxMismatchRate(0.2);
+        Assert.assertEquals(FileComparisonUtils.compareFiles(rows(0), rows(1), options).getDifferenceCount(), 100);
+    }
+
+    @Test
+    public void testSmallSampleIsInconclusive() throws IOException {
+        Path dir = Files.createTempDirectory("fail-fast-sample");
+        // Every one of the 200 records differs
+        List<List<String>> env1 = new ArrayList<>();
+        List<List<String>> env2 = new ArrayList<>();
+        for (List<String> row : rows(0).subList(0, 201)) {
+            env1.add(row);
+            env2.add(env2.isEmpty() ? row : Arrays.asList(row.get(0), row.get(1) + "1"));
+        }
+        write(dir.resolve("env1").resolve("trades.csv"), env1);
+        write(dir.resolve("env2").resolve("trades.csv"), env2);
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setReportFormats(EnumSet.of(ReportFormat.DELTA));
+        options.setFailFastMaxMismatchRate(0.5);
+        options.setSampleRate(0.05);
+
+        // A sample below failfast.minRecords does not stop the file, and the full comparison is too small as well
+        FileComparisonSummary summary = compare(dir, options);
+        Assert.assertFalse(summary.isAborted(), summary.getAbortReason());
+        Assert.assertEquals(summary.getSampleRate(), 0.0);
+        Assert.assertEquals(summary.getUnmatchedColumns(), 200);
+
+        options.setFailFastMinRecords(5);
+        summary = compare(dir, options);
+        Assert.assertTrue(summary.isAborted());
+        Assert.assertTrue(summary.getAbortReason().startsWith("Sample of 5.00%: 100.0% of "), summary.getAbortReason());
+        Assert.assertEquals(summary.getSampleRate(), 0.05);
+    }
+
+    @Test
+    public void testParallelComparisonIsCheckedOnceMerged() throws IOException {
+        Path dir = Files.createTempDirectory("fail-fast-parallel");
+        write(dir.resolve("env1").resolve("trades.csv"), rows(0));
+        write(dir.resolve("env2").resolve("trades.csv"), rows(1));
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setReportFormats(EnumSet.of(ReportFormat.DELTA));
+        options.setParallel(true);
+        options.setParallelChunkSize(256);
+        options.setFailFastMaxMismatchRate(0.05);
+        options.setFailFastMinRecords(200);
+
+        FileComparisonSummary summary = compare(dir, options);
+        Assert.assertTrue(summary.isAborted());
+        Assert.assertEquals(summary.getAbortReason(), "10.0% of 1000 records have differences, limit is 5.0%");
+        Assert.assertEquals(summary.getExamples().size(), 10);
+    }
+
+    private static FileComparisonSummary compare(Path dir, ComparisonOptions options) {
+        ComparisonRun run = new ComparisonRun(dir.resolve("out").toString());
+        DynamicReportGenerator.generateReports(dir.resolve("env1").toString(), dir.resolve("env2").toString(),
+                run.getBaseOutputPath(), "trades.csv", options, run);
+        Assert.assertEquals(run.getFailures().size(), 0, String.valueOf(run.getFailures()));
+        return run.getSummaries().get(0);
+    }
+
+    private static void write(Path file, List<List<String>> rows) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintWriter writer = new PrintWriter(file.toFile())) {
+            for (List<String> row : rows) {
+                writer.println(String.join(",", row));
+            }
+        }
+    }
+
+    // 1000 trades, every tenth with its price moved by delta
+    private static List<List<String>> rows(int delta) {
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(Arrays.asList("TradeID", "Price"));
+        for (int i = 0; i < 1000; i++) {
+            rows.add(Arrays.asList("T" + i, String.valueOf(i + (i % 10 == 0 ? delta : 0))));
+        }
+        return rows;
+    }
+}
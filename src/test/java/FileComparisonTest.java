@@ -1,48 +1,28 @@
-import com.opencsv.exceptions.CsvValidationException;
-import org.apache.poi.ss.usermodel.*;
+
+import org.example.BatchComparisonRunner;
+import org.example.ComparisonJob;
 import org.testng.annotations.Test;
-import org.example.DynamicReportGenerator;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.List;
 import java.util.Properties;
 
 public class FileComparisonTest {
 
     @Test
-    public void testCompareFilesInFolders() throws IOException, CsvValidationException {
+    public void testCompareFilesInFolders() throws IOException {
         // Load properties from the config file
         Properties props = new Properties();
         FileInputStream configInput = new FileInputStream("C:\\Users\\manju\\IdeaProjects\\filecomparision\\src\\main\\resources\\config.properties");
         props.load(configInput);
         configInput.close();
 
-        // Load Excel file
-        FileInputStream excelFile = new FileInputStream(new File("C:\\Users\\manju\\IdeaProjects\\filecomparision\\src\\main\\resources\\DataSheet.xlsx"));
-        Workbook workbook = WorkbookFactory.create(excelFile);
-        Sheet sheet = workbook.getSheetAt(0);
-
-        // Iterate through rows and columns
-        for (Row row : sheet) {
-            Cell comparisonCell = row.getCell(4); // Comparision column
-            if (comparisonCell != null && "yes".equalsIgnoreCase(comparisonCell.getStringCellValue())) {
-                String path = row.getCell(3).getStringCellValue(); // Path column
-                String folderNameEnv1 = props.getProperty("folder1");
-                String folderNameEnv2 = props.getProperty("folder2");
-                String reportName = row.getCell(2).getStringCellValue(); // Reportname column
-
-                // Construct the paths
-                String folder1 = path + "\\" + folderNameEnv1;
-                String folder2 = path + "\\" + folderNameEnv2;
-                String baseOutputPath = "C:\\Users\\manju\\IdeaProjects\\filecomparision\\target";
-
-                // Perform the file comparison
-                DynamicReportGenerator.generateReports(folder1, folder2, baseOutputPath, reportName);
-            }
-        }
+        // Rows flagged "yes" in the Comparision column of the data sheet
+        List<ComparisonJob> jobs = BatchComparisonRunner.loadJobs("C:\\Users\\manju\\IdeaProjects\\filecomparision\\src\\main\\resources\\DataSheet.xlsx", props);
+        String baseOutputPath = "C:\\Users\\manju\\IdeaProjects\\filecomparision\\target";
 
-        workbook.close();
-        excelFile.close();
+        // Perform the file comparisons on the worker pool
+        BatchComparisonRunner.fromProperties(props).run(jobs, baseOutputPath);
     }
 }
@@ -0,0 +1,48 @@
+
+import org.example.ComparisonResult;
+import org.example.FileComparisonUtils;
+import org.example.RecordDifference;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class KeyedComparisonTest {
+
+    @Test
+    public void testShiftedRowOnlyReportsRealDifferences() {
+        List<List<String>> env1 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "S", "a"));
+        env1.add(Arrays.asList("1234", "673", "537"));
+        env1.add(Arrays.asList("1235", "638", "575"));
+        env1.add(Arrays.asList("1236", "639", "539"));
+
+        List<List<String>> env2 = new ArrayList<>();
+        env2.add(Arrays.asList("TradeID", "S", "a"));
+        env2.add(Arrays.asList("9999", "1", "2"));
+        env2.add(Arrays.asList("1234", "673", "537"));
+        env2.add(Arrays.asList("1236", "639", "510"));
+
+        ComparisonResult result = FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0});
+
+        // 1234 matches; 1236 differs in one column; 1235 and 9999 are unpaired
+        Assert.assertEquals(result.getRecordCount(), 4);
+        Assert.assertEquals(result.getMatchedRecords(), 1);
+        Assert.assertEquals(result.getDifferences().size(), 3);
+
+        RecordDifference shifted = result.getDifferences().get(0);
+        Assert.assertEquals(shifted.getKey(), "1236");
+        Assert.assertEquals(shifted.getMismatchCount(), 1);
+        Assert.assertEquals(shifted.getColumn(0), 2);
+        Assert.assertEquals(shifted.getDifferenceText(0), "29.0");
+
+        Assert.assertEquals(result.getDifferences().get(1).getKey(), "1235");
+        Assert.assertEquals(result.getDifferences().get(1).getStatus(), RecordDifference.Status.ONLY_IN_ENV1);
+        Assert.assertEquals(result.getDifferences().get(2).getKey(), "9999");
+        Assert.assertEquals(result.getDifferences().get(2).getStatus(), RecordDifference.Status.ONLY_IN_ENV2);
+        Assert.assertEquals(result.getOnlyInEnv1Records(), 1);
+        Assert.assertEquals(result.getOnlyInEnv2Records(), 1);
+    }
+}
@@ -0,0 +1,146 @@
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import org.example.FileComparisonUtils;
+import org.example.MappedDelimitedReader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class MappedDelimitedReaderTest {
+
+    private static final String[] WELL_FORMED_CSV = {
+            "a,b,c\n1,\"x,y\",3\n",
+            "1,\"say \"\"hi\"\"\",3\n",
+            "1,\"line1\nline2\",3\n2,\"a\nb\",4\n",
+            "a,b\r\n1,2\r\n",
+            "a,b\r1,2\r",
+            "1,,3,\n",
+            "\n1,2\n",
+            "a,b",
+            "1,\"\",3\n",
+            "1,\"\"\"\",\"x\"\r\n\"\",2\r",
+    };
+
+    // Tiny windows make records straddle them
+    private static final int[] WINDOW_SIZES = {1, 2, 3, 5, 8, 13, MappedDelimitedReader.DEFAULT_WINDOW_SIZE};
+
+    @Test
+    public void testCsvReadsLikeOpenCsv() throws Exception {
+        for (String input : WELL_FORMED_CSV) {
+            List<List<String>> expected = readWithOpenCsv(input);
+            Assert.assertEquals(copy(FileComparisonUtils.readCSV(write(input, ".csv"))), expected, "input " + printable(input));
+            for (int windowSize : WINDOW_SIZES) {
+                Assert.assertEquals(read(new MappedDelimitedReader(',', true, false, windowSize), input), expected,
+                        "window " + windowSize + ", input " + printable(input));
+            }
+        }
+    }
+
+    @Test
+    public void testTabDelimitedDropsTrailingEmptyFields() throws IOException {
+        String input = "a\tb\t\t\n\t\tc\n\t\t\n\nx\r\ny\t\r";
+        List<List<String>> expected = Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("", "", "c"),
+                Collections.emptyList(),
+                Collections.singletonList(""),
+                Collections.singletonList("x"),
+                Collections.singletonList("y"));
+        Assert.assertEquals(copy(FileComparisonUtils.readTextFile(write(input, ".txt"))), expected);
+        for (int windowSize : WINDOW_SIZES) {
+            Assert.assertEquals(read(new MappedDelimitedReader('\t', false, true, windowSize), input), expected,
+                    "window " + windowSize);
+        }
+        // Quotes have no meaning in tab-delimited files
+        Assert.assertEquals(read(new MappedDelimitedReader('\t', false, true, 4), "\"a\tb\"\n"),
+                Collections.singletonList(Arrays.asList("\"a", "b\"")));
+    }
+
+    @Test
+    public void testDivergesFromOpenCsv() throws IOException, CsvException {
+        String junkAfterQuote = "1,\"q\"junk,3\n";
+        assertCsv(junkAfterQuote, Arrays.asList("1", "q", "3"));
+        Assert.assertEquals(readWithOpenCsv(junkAfterQuote),
+                Collections.singletonList(Arrays.asList("1", "q\"junk", "3")));
+
+        String spacedQuotes = "1, \"x\" ,3\n";
+        assertCsv(spacedQuotes, Arrays.asList("1", " \"x\" ", "3"));
+        Assert.assertEquals(readWithOpenCsv(spacedQuotes),
+                Collections.singletonList(Arrays.asList("1", "x\" ", "3")));
+
+        String strayQuote = "1,x\"y,3\n";
+        assertCsv(strayQuote, Arrays.asList("1", "x\"y", "3"));
+        assertOpenCsvRejects(strayQuote);
+
+        String unterminated = "1,\"unterminated\n2,3\n";
+        assertCsv(unterminated, Arrays.asList("1", "unterminated\n2,3\n"));
+        assertOpenCsvRejects(unterminated);
+
+        String crlfInQuotes = "1,\"a\r\nb\",3\r\n";
+        assertCsv(crlfInQuotes, Arrays.asList("1", "a\r\nb", "3"));
+        Assert.assertEquals(readWithOpenCsv(crlfInQuotes),
+                Collections.singletonList(Arrays.asList("1", "a\nb", "3")));
+    }
+
+    private static void assertCsv(String input, List<String> expected) throws IOException {
+        for (int windowSize : WINDOW_SIZES) {
+            Assert.assertEquals(read(new MappedDelimitedReader(',', true, false, windowSize), input),
+                    Collections.singletonList(expected), "window " + windowSize + ", input " + printable(input));
+        }
+    }
+
+    private static void assertOpenCsvRejects(String input) {
+        try {
+            readWithOpenCsv(input);
+            Assert.fail("OpenCSV accepted " + printable(input));
+        } catch (IOException | CsvException expected) {
+            // OpenCSV fails on the malformed line
+        }
+    }
+
+    private static List<List<String>> read(MappedDelimitedReader reader, String input) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        // Rows are views on the mapped window, so they are copied
+        reader.read(write(input, ".txt"), row -> rows.add(new ArrayList<>(row)));
+        return rows;
+    }
+
+    private static List<List<String>> copy(List<List<String>> rows) {
+        List<List<String>> copies = new ArrayList<>();
+        for (List<String> row : rows) {
+            copies.add(new ArrayList<>(row));
+        }
+        return copies;
+    }
+
+    private static String write(String input, String suffix) throws IOException {
+        Path file = Files.createTempFile("mapped-reader", suffix);
+        // Not deleted here, Windows refuses while the file is still mapped
+        file.toFile().deleteOnExit();
+        Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    private static List<List<String>> readWithOpenCsv(String input) throws IOException, CsvException {
+        List<List<String>> rows = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(new StringReader(input))) {
+            for (String[] row : reader.readAll()) {
+                rows.add(Arrays.asList(row));
+            }
+        }
+        return rows;
+    }
+
+    private static String printable(String input) {
+        return input.replace("\r", "\\r").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,92 @@
+import org.example.NumericParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public class NumericParserTest {
+
+    private static final String[] VALUES = {
+            "0", "-0", "+0", "42", "-42", "+42", "00012", "1.", ".5", "-.5", "1.25", "-1.25",
+            "1e3", "1E3", "1e+3", "1e-3", "-1.5E-7", "1e308", "1e309", "-1e309", "4.9e-324", "1e-400",
+            "2.2250738585072014E-308", "1.7976931348623157E308",
+            " 42", "42 ", "\t 42 \n", " -1.5e2 ",
+            "1d", "1D", "1.5f", "1.5F", "1e3d",
+            "Infinity", "-Infinity", "+Infinity", " Infinity ", "Infinityx", "infinity",
+            "NaN", "-NaN", "nan",
+            "1,000", "1 000", "1_000", "$100", "100%", "12-Mar-2024", "2024-03-12", "abc", "T1",
+            "-", "+", ".", "-.", "+.", "e5", ".e5", "1e", "1e+", "1e-", "1e5.5", "--1", "1-", "1..2", "1.2.3",
+            "", " ", "\t",
+            "9007199254740993", "9007199254740992.5", "123456789012345678", "1234567890123456789",
+            "12345678901234567890123", "-98765432109876543210987654321.123456789",
+            "0.000000000000000000000000001234567890123456789",
+            "3.141592653589793238462643383279502884197169399375105820974944592307816406286",
+            "100000000000000000000000000000000000000000000000000000000000000000000000000000000000000",
+    };
+
+    @Test
+    public void testParsesLikeDoubleParseDouble() {
+        for (String value : VALUES) {
+            assertParsesLikeBefore(value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            assertParsesLikeBefore(randomDecimal(random));
+        }
+    }
+
+    @Test
+    public void testDivergences() {
+        // The old parse threw on null; hexadecimal literals are text rather than numbers
+        Assert.assertTrue(Double.isNaN(NumericParser.parse(null)));
+        Assert.assertEquals(Double.parseDouble("0x1p3"), 8.0);
+        Assert.assertTrue(Double.isNaN(NumericParser.parse("0x1p3")));
+    }
+
+    private static void assertParsesLikeBefore(String value) {
+        double expected = parseDouble(value);
+        double actual = NumericParser.parse(value);
+        // Compares bits, so NaN equals NaN and -0.0 differs from 0.0
+        Assert.assertEquals(Double.doubleToLongBits(actual), Double.doubleToLongBits(expected),
+                "'" + value + "': " + actual + " vs " + expected);
+        Assert.assertEquals(NumericParser.isNumeric(value), !Double.isNaN(expected), value);
+        if (!Double.isNaN(expected)) {
+            Assert.assertTrue(NumericParser.mayBeNumeric(value), "pre-check rejects '" + value + "'");
+        }
+    }
+
+    // The parse used on every cell before NumericParser
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String randomDecimal(Random random) {
+        StringBuilder text = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            text.append(random.nextBoolean() ? '-' : '+');
+        }
+        appendDigits(text, random, random.nextInt(30));
+        if (random.nextBoolean()) {
+            text.append('.');
+            appendDigits(text, random, random.nextInt(30));
+        }
+        if (random.nextInt(3) == 0) {
+            text.append(random.nextBoolean() ? 'e' : 'E');
+            if (random.nextBoolean()) {
+                text.append(random.nextBoolean() ? '-' : '+');
+            }
+            appendDigits(text, random, random.nextInt(4));
+        }
+        return text.toString();
+    }
+
+    private static void appendDigits(StringBuilder text, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+    }
+}
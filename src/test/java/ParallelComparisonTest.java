@@ -0,0 +1,55 @@
+
+import org.example.ComparisonOptions;
+import org.example.ComparisonResult;
+import org.example.FileComparisonUtils;
+import org.example.ParallelComparison;
+import org.example.RecordDifference;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ParallelComparisonTest {
+
+    @Test
+    public void testParallelResultsMatchSequentialOrder() {
+        List<List<String>> env1 = new ArrayList<>();
+        List<List<String>> env2 = new ArrayList<>();
+        env1.add(Arrays.asList("TradeID", "Price", "Book"));
+        env2.add(Arrays.asList("TradeID", "Price", "Book"));
+        for (int i = 0; i < 20000; i++) {
+            env1.add(Arrays.asList(String.valueOf(i % 15000), String.valueOf(i % 97), "B" + (i % 5)));
+            if (i % 333 != 0) {
+                env2.add(Arrays.asList(String.valueOf(i % 15000), String.valueOf(i % 97 + (i % 41 == 0 ? 2 : 0)), "B" + (i % 5)));
+            }
+        }
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setParallelThreads(4);
+        options.setParallelChunkSize(1000);
+        ParallelComparison parallel = new ParallelComparison(options);
+
+        assertSameResult(parallel.compareFiles(env1, env2), FileComparisonUtils.compareFiles(env1, env2));
+        assertSameResult(parallel.compareFilesByKey(env1, env2, new int[]{0}),
+                FileComparisonUtils.compareFilesByKey(env1, env2, new int[]{0}));
+    }
+
+    private static void assertSameResult(ComparisonResult actual, ComparisonResult expected) {
+        Assert.assertEquals(actual.getMatchedRecords(), expected.getMatchedRecords());
+        Assert.assertEquals(actual.getMatchedCells(), expected.getMatchedCells());
+        Assert.assertEquals(actual.getUnmatchedCells(), expected.getUnmatchedCells());
+        Assert.assertEquals(actual.getDifferenceCount(), expected.getDifferenceCount());
+        for (int i = 0; i < expected.getDifferenceCount(); i++) {
+            RecordDifference a = actual.getDifferences().get(i);
+            RecordDifference e = expected.getDifferences().get(i);
+            Assert.assertEquals(a.getKey(), e.getKey());
+            Assert.assertEquals(a.getStatus(), e.getStatus());
+            Assert.assertEquals(a.getMismatchCount(), e.getMismatchCount());
+            for (int k = 0; k < e.getMismatchCount(); k++) {
+                Assert.assertEquals(a.getDifferenceText(k), e.getDifferenceText(k));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import org.example.ComparisonOptions;
+import org.example.ParsedFileCache;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ParsedFileCacheTest {
+
+    @Test
+    public void testEntriesAreReusedUntilTheSourceChanges() throws Exception {
+        Path dir = Files.createTempDirectory("parsed-cache");
+        Path source = dir.resolve("trades.csv");
+        ComparisonOptions options = cacheOptions(dir.resolve("cache"), 1);
+
+        write(source, "TradeID,Price\nT1,100\n");
+        FileTime modified = Files.getLastModifiedTime(source);
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "100"));
+        Assert.assertEquals(entries(dir.resolve("cache")).size(), 1);
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "100"));
+
+        // Rewritten at the same size within the timestamp granularity, the content hash catches it
+        write(source, "TradeID,Price\nT1,200\n");
+        Files.setLastModifiedTime(source, modified);
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "200"));
+
+        write(source, "TradeID,Price\nT1,3000\n");
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "3000"));
+        Assert.assertEquals(entries(dir.resolve("cache")).size(), 1);
+    }
+
+    @Test
+    public void testTrustedModifiedTimeSkipsTheContentHash() throws Exception {
+        Path dir = Files.createTempDirectory("parsed-cache-trusted");
+        Path source = dir.resolve("trades.csv");
+        ComparisonOptions options = cacheOptions(dir.resolve("cache"), 1);
+        options.setCacheTrustModifiedTime(true);
+
+        write(source, "TradeID,Price\nT1,100\n");
+        FileTime modified = Files.getLastModifiedTime(source);
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "100"));
+
+        // The opt-in shortcut: same size and modification time replay the entry without reading the file
+        write(source, "TradeID,Price\nT1,200\n");
+        Files.setLastModifiedTime(source, modified);
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "100"));
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(modified.toMillis() + 2000));
+        Assert.assertEquals(read(source, options), rows("TradeID", "Price", "T1", "200"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        Path dir = Files.createTempDirectory("parsed-cache-eviction");
+        Path cacheDir = dir.resolve("cache");
+        ComparisonOptions options = cacheOptions(cacheDir, 1);
+        // Each entry takes well over half of the 1 MB cap
+        Path older = writeLarge(dir.resolve("older.csv"));
+        Path newer = writeLarge(dir.resolve("newer.csv"));
+
+        read(older, options);
+        List<Path> olderEntries = entries(cacheDir);
+        Assert.assertEquals(olderEntries.size(), 1);
+        Files.setLastModifiedTime(olderEntries.get(0), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        read(newer, options);
+        List<Path> remaining = entries(cacheDir);
+        Assert.assertEquals(remaining.size(), 1);
+        Assert.assertNotEquals(remaining.get(0), olderEntries.get(0));
+    }
+
+    private static ComparisonOptions cacheOptions(Path cacheDir, int maxSizeMb) {
+        Properties props = new Properties();
+        props.setProperty(ComparisonOptions.CACHE_ENABLED, "true");
+        props.setProperty(ComparisonOptions.CACHE_DIR, cacheDir.toString());
+        props.setProperty(ComparisonOptions.CACHE_MAX_SIZE_MB, String.valueOf(maxSizeMb));
+        return ComparisonOptions.fromProperties(props);
+    }
+
+    private static List<List<String>> read(Path source, ComparisonOptions options) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        ParsedFileCache.readRows(source.toString(), options, row -> rows.add(new ArrayList<>(row)));
+        return rows;
+    }
+
+    private static List<List<String>> rows(String... cells) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 0; i < cells.length; i += 2) {
+            rows.add(Arrays.asList(cells[i], cells[i + 1]));
+        }
+        return rows;
+    }
+
+    private static List<Path> entries(Path cacheDir) throws IOException {
+        try (Stream<Path> paths = Files.list(cacheDir)) {
+            return paths.filter(path -> path.toString().endsWith(".rows")).collect(Collectors.toList());
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Path writeLarge(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file.toFile())) {
+            writer.println("TradeID,Price,Book");
+            for (int i = 0; i < 20000; i++) {
+                writer.println("T" + i + "," + i + ".25,Book-" + file.getFileName() + "-" + i);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,104 @@
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.FileComparisonUtils;
+import org.example.FileFormat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StreamingXlsReaderTest {
+
+    @Test
+    public void testXlsReadsLikeXlsx() throws IOException {
+        Path dir = Files.createTempDirectory("xls-reader");
+        String xls = dir.resolve("trades.xls").toString();
+        String xlsx = dir.resolve("trades.xlsx").toString();
+        // Saved with the other extension, so the format has to come from the leading bytes
+        String misnamed = dir.resolve("legacy.xlsx").toString();
+        try (Workbook workbook = new HSSFWorkbook()) {
+            fill(workbook);
+            write(workbook, xls);
+            write(workbook, misnamed);
+        }
+        try (Workbook workbook = new XSSFWorkbook()) {
+            fill(workbook);
+            write(workbook, xlsx);
+        }
+
+        Assert.assertEquals(FileFormat.detect(xls), FileFormat.XLS);
+        Assert.assertEquals(FileFormat.detect(misnamed), FileFormat.XLS);
+        Assert.assertEquals(FileFormat.detect(xlsx), FileFormat.XLSX);
+
+        List<List<String>> expected = FileComparisonUtils.readExcel(xlsx);
+        Assert.assertEquals(expected.get(1).get(3), "TRUE");
+        Assert.assertEquals(FileComparisonUtils.readExcel(xls), expected);
+        Assert.assertEquals(FileComparisonUtils.readExcel(misnamed), expected);
+        Assert.assertEquals(readSheets(xls), readSheets(xlsx));
+    }
+
+    private static void fill(Workbook workbook) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+        Calendar tradeDate = Calendar.getInstance();
+        tradeDate.clear();
+        tradeDate.set(2024, Calendar.MARCH, 15);
+
+        Sheet trades = workbook.createSheet("Trades");
+        Row header = trades.createRow(0);
+        String[] headers = {"TradeID", "Price", "Book", "Live", "TradeDate", "Notional", "Label"};
+        for (int j = 0; j < headers.length; j++) {
+            header.createCell(j).setCellValue(headers[j]);
+        }
+        for (int i = 1; i <= 3; i++) {
+            Row row = trades.createRow(i);
+            row.createCell(0).setCellValue("T" + i);
+            row.createCell(1).setCellValue(100.25 * i);
+            // Column 2 is left blank on the second row
+            if (i != 2) {
+                row.createCell(2).setCellValue("BOOK" + i);
+            }
+            row.createCell(3).setCellValue(i % 2 == 1);
+            row.createCell(4).setCellValue(tradeDate.getTime());
+            row.getCell(4).setCellStyle(dateStyle);
+            row.createCell(5).setCellFormula("B" + (i + 1) + "*1000");
+            row.createCell(6).setCellFormula("A" + (i + 1) + "&\"-X\"");
+        }
+        // Cached formula results are written as the workbook would have saved them
+        workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+
+        Sheet risk = workbook.createSheet("Risk");
+        risk.createRow(0).createCell(0).setCellValue("TradeID");
+        risk.getRow(0).createCell(1).setCellValue("Delta");
+        risk.createRow(1).createCell(0).setCellValue("T1");
+        risk.getRow(1).createCell(1).setCellValue(-0.5);
+    }
+
+    private static Map<String, List<List<String>>> readSheets(String path) throws IOException {
+        Map<String, List<List<String>>> sheets = new LinkedHashMap<>();
+        FileComparisonUtils.readSheets(path, name -> {
+            List<List<String>> rows = new ArrayList<>();
+            sheets.put(name, rows);
+            return rows::add;
+        });
+        return sheets;
+    }
+
+    private static void write(Workbook workbook, String path) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            workbook.write(out);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.example.ComparisonOptions;
+import org.example.ComparisonResult;
+import org.example.WorkbookComparison;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+public class WorkbookComparisonTest {
+
+    @Test
+    public void testSheetsAreMatchedByName() throws IOException {
+        Path dir = Files.createTempDirectory("workbook-comparison");
+        String env1 = dir.resolve("env1.xlsx").toString();
+        String env2 = dir.resolve("env2.xlsx").toString();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            addSheet(workbook, "Trades", new String[][]{{"TradeID", "Price"}, {"1", "100"}, {"2", "200"}});
+            addSheet(workbook, "Risk", new String[][]{{"TradeID", "Delta"}, {"1", "5"}});
+            addSheet(workbook, "Legacy", new String[][]{{"TradeID", "Flag"}, {"1", "Y"}, {"2", "N"}});
+            write(workbook, env1);
+        }
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            // Different sheet order, a changed price, a new sheet and an empty one
+            addSheet(workbook, "Risk", new String[][]{{"TradeID", "Delta"}, {"1", "5"}});
+            addSheet(workbook, "Trades", new String[][]{{"TradeID", "Price"}, {"1", "100"}, {"2", "250"}});
+            addSheet(workbook, "New", new String[][]{{"TradeID", "Note"}, {"7", "x"}});
+            workbook.createSheet("Empty");
+            write(workbook, env2);
+        }
+
+        ComparisonOptions options = ComparisonOptions.defaults();
+        options.setKeyColumns(Arrays.asList("TradeID"));
+        Map<String, ComparisonResult> sheets = new WorkbookComparison(options).compare(env1, env2);
+
+        Assert.assertEquals(new ArrayList<>(sheets.keySet()), Arrays.asList("Trades", "Risk", "Legacy", "New"));
+        Assert.assertEquals(sheets.get("Trades").getDifferenceCount(), 1);
+        Assert.assertEquals(sheets.get("Trades").getMatchedRecords(), 1);
+        Assert.assertEquals(sheets.get("Risk").getDifferenceCount(), 0);
+        Assert.assertEquals(sheets.get("Legacy").getOnlyInEnv1Records(), 2);
+        Assert.assertEquals(sheets.get("New").getOnlyInEnv2Records(), 1);
+    }
+
+    private static void addSheet(XSSFWorkbook workbook, String name, String[][] rows) {
+        Sheet sheet = workbook.createSheet(name);
+        for (int i = 0; i < rows.length; i++) {
+            Row row = sheet.createRow(i);
+            for (int j = 0; j < rows[i].length; j++) {
+                row.createCell(j).setCellValue(rows[i][j]);
+            }
+        }
+    }
+
+    private static void write(XSSFWorkbook workbook, String path) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(path)) {
+            workbook.write(out);
+        }
+    }
+}
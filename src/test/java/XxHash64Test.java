@@ -0,0 +1,54 @@
+import org.example.XxHash64;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class XxHash64Test {
+
+    private static final String FOX = "The quick brown fox jumps over the lazy dog";
+
+    @Test
+    public void testReferenceVectors() {
+        Assert.assertEquals(hash("", 0), 0xEF46DB3751D8E999L);
+        Assert.assertEquals(hash("a", 0), 0xD24EC4F1A98C6E5BL);
+        Assert.assertEquals(hash("abc", 0), 0x44BC2CF5AD770999L);
+        Assert.assertEquals(hash("xxhash", 0), 0x32DD38952C4BC720L);
+        // Over 32 bytes, so the four-lane stripes are used
+        Assert.assertEquals(hash("Nobody inspects the spammish repetition", 0), 0xFBCEA83C8A378BF1L);
+        Assert.assertEquals(hash(FOX, 0), 0x0B242D361FDA71BCL);
+
+        Assert.assertEquals(hash("", 1), 0xD5AFBA1336A3BE4BL);
+        Assert.assertEquals(hash("xxhash", 20141025), 0xB559B98D844E0635L);
+        Assert.assertEquals(hash(FOX, 20141025), 0x61068FC2C4569AACL);
+    }
+
+    @Test
+    public void testSplitUpdatesMatchOneUpdate() throws IOException {
+        byte[] bytes = (FOX + " " + FOX).getBytes(StandardCharsets.UTF_8);
+        long expected = new XxHash64().update(bytes, 0, bytes.length).digest();
+        for (int split = 0; split <= bytes.length; split++) {
+            XxHash64 hasher = new XxHash64().update(bytes, 0, split).update(bytes, split, bytes.length - split);
+            Assert.assertEquals(hasher.digest(), expected, "split at " + split);
+        }
+        Assert.assertEquals(new XxHash64().update(ByteBuffer.wrap(bytes), 0, bytes.length).digest(), expected);
+        // Reset starts over from the same seed
+        XxHash64 reused = new XxHash64(20141025);
+        reused.update(bytes, 0, 7).reset();
+        Assert.assertEquals(reused.update(bytes, 0, bytes.length).digest(),
+                new XxHash64(20141025).update(bytes, 0, bytes.length).digest());
+
+        Path file = Files.createTempFile("xxhash", ".txt");
+        Files.write(file, bytes);
+        Assert.assertEquals(XxHash64.hashFile(file.toString()), expected);
+    }
+
+    private static long hash(String text, long seed) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return new XxHash64(seed).update(bytes, 0, bytes.length).digest();
+    }
+}